@@ -0,0 +1,41 @@
+import java.nio.file.Paths;
+
+import com.google.inject.AbstractModule;
+import com.typesafe.config.Config;
+
+import actors.GameRegistry;
+import play.Environment;
+import play.libs.akka.AkkaGuiceSupport;
+import utils.BoardGeometry;
+import utils.ConfigWatcher;
+import utils.GameTemplates;
+import utils.PreloadManifest;
+
+/**
+ * Sets up the parts of the application that there is only one of per server. Play finds
+ * this class by its name.
+ *  - the GameRegistry, which owns every game, can be injected as
+ *    {@literal @}Named("game-registry") ActorRef
+ *  - the GameTemplates, BoardGeometry and PreloadManifest, which are read here so that no
+ *    game has to wait for them
+ *  - the ConfigWatcher, if game.configs.watch is turned on
+ *
+ */
+public class Module extends AbstractModule implements AkkaGuiceSupport {
+
+	private final Config config;
+
+	public Module(Environment environment, Config config) {
+		this.config = config;
+	}
+
+	@Override
+	protected void configure() {
+		bindActor(GameRegistry.class, "game-registry");
+		GameTemplates.preload();
+		BoardGeometry.preload();
+		PreloadManifest.preload();
+		if (config.hasPath("game.configs.watch") && config.getBoolean("game.configs.watch")) ConfigWatcher.start(Paths.get("conf/gameconfs"));
+	}
+
+}
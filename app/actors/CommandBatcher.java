@@ -0,0 +1,243 @@
+package actors;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+
+import akka.actor.AbstractActorWithTimers;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import commands.CommandEncoder;
+import metrics.GameMetrics;
+import metrics.MemoryEstimate;
+import commands.PlayerStatsCoalescer;
+import commands.ScreenState;
+import commands.VisualReferences;
+
+/**
+ * The CommandBatcher sits between the GameActor and the websocket connection to the
+ * front-end. Rather than each command becoming its own websocket frame, the commands
+ * issued while an event is being processed are collected together, and then sent as
+ * a single 'commandBatch' message when the GameActor tells the batcher to flush.
+ *
+ * A batch is also sent if it reaches the maximum batch size, or if commands have been
+ * waiting for longer than the flush interval (e.g. when they are issued by a long
+ * running piece of game logic). Both of these, and whether batching is used at all,
+ * are set in the game.commands.batching section of application.conf.
+ *
+ * As the batcher lives for as long as the websocket connection, it is also where unit
+ * and card definitions are swapped for references once the front-end has seen them
+ * (see VisualReferences). This is turned on by game.commands.reference-visuals.
+ *
+ * Any changes to the players' health and mana within a batch are combined into a single
+ * setPlayerStats command (see PlayerStatsCoalescer).
+ *
+ * The front-end that commands are sent to is given with an Attach message. Until then (or
+ * after the front-end has gone), commands are thrown away. The batcher keeps track of what
+ * should be on screen as commands go past (see ScreenState), so that a front-end that has
+ * reconnected can be sent everything in one syncState message when it asks with Sync.
+ *
+ * {
+ *   messagetype = "commandBatch"
+ *   commands = [ <command>, <command>, ... ]
+ * }
+ *
+ */
+public class CommandBatcher extends AbstractActorWithTimers {
+
+	/**
+	 * Send this to the batcher to have any commands it is holding sent to the front-end
+	 */
+	public static final Object Flush = "flush";
+
+	private static final Object FlushTimer = "flushTimer";
+
+	/**
+	 * Send this to the batcher to have the front-end redrawn with a single syncState
+	 * message, e.g. after it has reconnected to a game that is already running
+	 */
+	public static final Object Sync = "sync";
+
+	/**
+	 * Asks the batcher what the front-end should currently be showing. The reply is a
+	 * Screen.
+	 */
+	public static final Object GetScreen = "getScreen";
+
+	/**
+	 * The reply to GetScreen
+	 */
+	public static class Screen {
+		public final ObjectNode sync; // a syncState message, which belongs to whoever asked
+		public Screen(ObjectNode sync) {
+			this.sync = sync;
+		}
+	}
+
+	/**
+	 * Sent on by the GameActor when it is asked for its GameActor.Footprint. The batcher
+	 * adds how much memory what is on screen takes up, and replies to whoever asked.
+	 */
+	public static class GetFootprint {
+		final String gameId;
+		final long stateBytes;
+		final int waitingEvents;
+		public GetFootprint(String gameId, long stateBytes, int waitingEvents) {
+			this.gameId = gameId;
+			this.stateBytes = stateBytes;
+			this.waitingEvents = waitingEvents;
+		}
+	}
+
+	/**
+	 * Send this to the batcher when a game has been loaded back in (see GameStore), so
+	 * that it knows what the front-end was showing
+	 */
+	public static class Restore {
+		final ObjectNode sync;
+		/**
+		 * @param sync the saved syncState message
+		 */
+		public Restore(ObjectNode sync) {
+			this.sync = sync;
+		}
+	}
+
+	/**
+	 * Send this to the batcher to change the front-end that commands are sent to. Anything
+	 * that was waiting to go to the old front-end is dropped, and the new front-end is
+	 * sent the first message (e.g. actorReady) before anything else.
+	 */
+	public static class Attach {
+		final ActorRef out;
+		final String first;
+		/**
+		 * @param out the new front-end, or null if there is none
+		 * @param first text to send to the new front-end straight away, or null
+		 */
+		public Attach(ActorRef out, String first) {
+			this.out = out;
+			this.first = first;
+		}
+	}
+
+	private ActorRef out; // The websocket connection to the front-end, null if there is none
+	private boolean enabled;
+	private int maxBatchSize;
+	private Duration flushInterval;
+	private VisualReferences references; // null if units/cards are always sent in full
+	private PlayerStatsCoalescer playerStats = new PlayerStatsCoalescer();
+	private ScreenState screen = new ScreenState(); // what the front-end should currently be showing
+
+	private List<JsonNode> pending = new ArrayList<JsonNode>();
+
+	public static Props props(ActorRef out) {
+		return Props.create(CommandBatcher.class, out);
+	}
+
+	public CommandBatcher(ActorRef out) {
+		this.out = out;
+
+		Config config = getContext().getSystem().settings().config();
+		enabled = !config.hasPath("game.commands.batching.enabled") || config.getBoolean("game.commands.batching.enabled");
+		maxBatchSize = config.hasPath("game.commands.batching.max-size")?config.getInt("game.commands.batching.max-size"):64;
+		flushInterval = config.hasPath("game.commands.batching.flush-interval")?config.getDuration("game.commands.batching.flush-interval"):Duration.ofSeconds(1);
+		if (!config.hasPath("game.commands.reference-visuals") || config.getBoolean("game.commands.reference-visuals")) {
+			references = new VisualReferences();
+		}
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(JsonNode.class, this::add)
+				.match(Attach.class, this::attach)
+				.matchEquals(Flush, message -> flush())
+				.matchEquals(FlushTimer, message -> flush())
+				.matchEquals(Sync, message -> sync())
+				.matchEquals(GetScreen, message -> getSender().tell(new Screen(screen.toSync().deepCopy()), getSelf()))
+				.match(Restore.class, restore -> screen.restore(restore.sync))
+				.match(GetFootprint.class, footprint -> {
+					long screenBytes = new MemoryEstimate().add(screen).add(pending).add(references).add(playerStats).getBytes();
+					getSender().tell(new GameActor.Footprint(footprint.gameId, footprint.stateBytes, screenBytes, footprint.waitingEvents), getSelf());
+				})
+				.build();
+	}
+
+	private void attach(Attach attach) {
+		getTimers().cancel(FlushTimer);
+		pending.clear();
+		playerStats.reset();
+		if (references!=null) references = new VisualReferences(); // the new front-end has not seen any units or cards
+		out = attach.out;
+		if (attach.first!=null) send(attach.first);
+	}
+
+	private void add(JsonNode command) {
+		screen.observe(command);
+		if (references!=null) command = references.compact(command);
+
+		if (!enabled) {
+			send(CommandEncoder.toText(command));
+			return;
+		}
+
+		command = playerStats.add(command);
+		if (command==null) return; // merged into the player stats already in the batch
+
+		pending.add(command);
+		if (pending.size()>=maxBatchSize) flush();
+		else if (pending.size()==1) getTimers().startSingleTimer(FlushTimer, FlushTimer, flushInterval);
+	}
+
+	/**
+	 * Sends everything that is waiting as one websocket frame. A batch of one command
+	 * is sent as-is.
+	 */
+	private void flush() {
+		getTimers().cancel(FlushTimer);
+		if (pending.isEmpty()) return;
+
+		if (pending.size()==1) {
+			send(CommandEncoder.toText(pending.get(0)));
+		} else {
+			ObjectNode batch = CommandEncoder.newMessage("commandBatch");
+			ArrayNode commands = batch.putArray("commands");
+			commands.addAll(pending);
+			send(CommandEncoder.toText(batch));
+		}
+		pending.clear();
+		playerStats.reset();
+	}
+
+	/**
+	 * Sends anything that is waiting, followed by a syncState message that redraws the
+	 * whole screen
+	 */
+	private void sync() {
+		flush();
+		ObjectNode sync = screen.toSync();
+		if (references!=null) {
+			ArrayNode commands = (ArrayNode)sync.get("commands");
+			for (int i = 0; i<commands.size(); i++) commands.set(i, references.compact(commands.get(i)));
+		}
+		send(CommandEncoder.toText(sync));
+	}
+
+	private void send(String text) {
+		if (out==null) return;
+		GameMetrics.frameSent(text);
+		out.tell(text, self());
+	}
+
+	@Override
+	public void postStop() {
+		flush();
+	}
+
+}
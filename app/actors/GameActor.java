@@ -1,27 +1,50 @@
 package actors;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
 
-import akka.actor.AbstractActor;
+import akka.actor.AbstractActorWithTimers;
 import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import commands.ActorRefSink;
+import commands.CommandSink;
+import commands.Timeline;
+import events.AsyncEventProcessor;
 import events.CardClicked;
 import events.EndTurnClicked;
-import events.EventProcessor;
+import events.EventType;
+import events.GameEvent;
+import events.GameEventDecoder;
+import events.GameEventLog;
+import events.GameExecutors;
 import events.Heartbeat;
 import events.Initalize;
 import events.OtherClicked;
 import events.TileClicked;
 import events.UnitMoving;
 import events.UnitStopped;
+import metrics.GameMetrics;
+import metrics.MemoryEstimate;
 import play.libs.Json;
 import structures.GameState;
-import utils.ImageListForPreLoad;
+import structures.MovementTracker;
+import utils.PreloadManifest;
 import play.libs.Json;
 
 /**
@@ -29,8 +52,8 @@ import play.libs.Json;
  * the user clicks on the board) via a websocket connection. When an event arrives, the 
  * processMessage() method is called, which can be used to react to the event. The Game actor 
  * also includes an ActorRef object which can be used to issue commands to the UI to change 
- * what the user sees. The GameActor is created when the user browser creates a websocket
- * connection to back-end services (on load of the game web page).
+ * what the user sees. The GameActor is created by the GameRegistry when the user browser
+ * creates a websocket connection to back-end services (on load of the game web page).
  * /** *游戏角色是一个Akka角色，通过websocket连接接收来自用户前端UI的事件（例如，当*用户点击棋盘时）。
  * 当一个事件到达时， processMessage()方法被调用，它可以用来对事件做出反应。
  * 游戏角色还包括一个ActorRef对象，可以用来向用户界面发出命令，以改变用户看到的东西。
@@ -38,88 +61,453 @@ import play.libs.Json;
  * @author Dr. Richard McCreadie
  *
  */
-public class GameActor extends AbstractActor {
+public class GameActor extends AbstractActorWithTimers {
+
+	private static final Logger logger = LoggerFactory.getLogger(GameActor.class);
 
-	private ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
-	private ActorRef out; // The ActorRef can be used to send messages to the front-end UI 向前端UI发送消息
-	private Map<String,EventProcessor> eventProcessors; // Classes used to process each type of event 用于处理每一个事件
+	private ActorRef out; // The ActorRef can be used to send messages to the front-end UI 向前端UI发送消息, null until Connect
+	private ActorRef commands; // Batches up the commands sent while processing an event, see CommandBatcher
+	private CommandSink sink; // Where this game's commands are sent, i.e. to the CommandBatcher
+	private Map<EventType,AsyncEventProcessor> eventProcessors; // Classes used to process each type of event 用于处理每一个事件
+	private GameExecutors executors; // Where event processors can run slow work, see AsyncEventProcessor
+	private boolean processing = false; // true while an event processor has not finished
+	private CompletableFuture<Throwable> finishing; // completed when the event being processed finishes or times out, null if there is none
+	private Duration processingTimeout; // how long an event processor can take before the game carries on without it
+	private Deque<ReceivedEvent> waitingEvents = new ArrayDeque<ReceivedEvent>(); // events that arrived while processing was true
 	private GameState gameState; // A class that can be used to hold game state information 可以用来保存游戏状态信息
+	private ActorRef self; // kept so that tasks can be scheduled from other threads
+	private String gameId; // identifies this game, given by the GameRegistry
+	private GameEventLog eventLog; // logs the events this game receives, see GameEventLog
+	private ActorSystem system;
+	private Duration reconnectTimeout; // how long the game waits for its front-end to come back
+	private String session; // the game's session token, given by the GameRegistry
+	private GameStore store; // where the game is saved when it is passivated, null if it never is
+	private Duration idleTimeout; // how long the game waits for input before it is passivated
+	private long activity = 0; // counts the front-end connecting and sending input, to tell whether a game is still idle
+	private boolean passivating = false; // true while the game is being saved
+	private long activityAtPassivate; // activity when passivating started
+
+	private static final Object ReconnectTimeout = "reconnectTimeout";
+	private static final Object IdleTimeout = "idleTimeout";
+	private static final Object ProcessingTimeout = "processingTimeout";
 
 	/**
-	 * Constructor for the GameActor. This is called by the GameController when the websocket
-	 * connection to the front-end is established.
-	 * @param out
+	 * The Props used to create a GameActor, with the mailbox set up in application.conf
+	 * (see GameEventMailbox)
+	 * @param gameId
+	 * @param session the game's session token
+	 * @param restore true if the game should be loaded back in from the GameStore
+	 * @return
+	 */
+	public static Props props(String gameId, String session, boolean restore) {
+		return Props.create(GameActor.class, gameId, session, restore).withMailbox("game-actor-mailbox");
+	}
+
+	/**
+	 * Constructor for the GameActor. This is called by the GameRegistry when a websocket
+	 * connection to the front-end asks for a game, either a new one or one that was
+	 * passivated. The front-end is attached straight after with a Connect message.
+	 * @param gameId
+	 * @param session
+	 * @param restore
 	 */
 	@SuppressWarnings("deprecation")
-	public GameActor(ActorRef out) {
+	public GameActor(String gameId, String session, boolean restore) {
 
-		this.out = out; // save this, so we can send commands to the front-end later
+		this.commands = getContext().actorOf(CommandBatcher.props(null), "commands"); // the front-end is given to it on Connect
+		this.sink = new ActorRefSink(commands);
+		this.self = getSelf();
+		this.system = getContext().getSystem();
+		this.gameId = gameId;
+		this.eventLog = new GameEventLog(gameId, system.settings().config());
+		GameMetrics.activeGames.incrementAndGet();
 
 		// create class instances to respond to the various events that we might recieve
-		eventProcessors = new HashMap<String,EventProcessor>();
-		eventProcessors.put("initalize", new Initalize());
-		eventProcessors.put("heartbeat", new Heartbeat());
-		eventProcessors.put("unitMoving", new UnitMoving());
-		eventProcessors.put("unitstopped", new UnitStopped());
-		eventProcessors.put("tileclicked", new TileClicked());
-		eventProcessors.put("cardclicked", new CardClicked());
-		eventProcessors.put("endturnclicked", new EndTurnClicked());
-		eventProcessors.put("otherclicked", new OtherClicked());
+		eventProcessors = new EnumMap<EventType,AsyncEventProcessor>(EventType.class);
+		eventProcessors.put(EventType.initalize, AsyncEventProcessor.of(new Initalize()));
+		eventProcessors.put(EventType.heartbeat, AsyncEventProcessor.of(new Heartbeat()));
+		eventProcessors.put(EventType.unitMoving, AsyncEventProcessor.of(new UnitMoving()));
+		eventProcessors.put(EventType.unitstopped, AsyncEventProcessor.of(new UnitStopped()));
+		eventProcessors.put(EventType.tileclicked, AsyncEventProcessor.of(new TileClicked()));
+		eventProcessors.put(EventType.cardclicked, AsyncEventProcessor.of(new CardClicked()));
+		eventProcessors.put(EventType.endturnclicked, AsyncEventProcessor.of(new EndTurnClicked()));
+		eventProcessors.put(EventType.otherclicked, AsyncEventProcessor.of(new OtherClicked()));
+		
+		// Slow work is run on its own dispatchers, so that it does not hold up other games
+		executors = new GameExecutors(lookupDispatcher("game.dispatchers.compute"), lookupDispatcher("game.dispatchers.blocking"), this::schedule);
 		
 		// Initalize a new game state object
 		gameState = new GameState();
+		gameState.timeline = new Timeline(this::schedule);
+		Config config = system.settings().config();
+		Duration moveTimeout = config.hasPath("game.movement.timeout")?config.getDuration("game.movement.timeout"):Duration.ofSeconds(10);
+		gameState.movement = new MovementTracker(this::schedule, moveTimeout);
+		processingTimeout = config.hasPath("game.events.processing-timeout")?config.getDuration("game.events.processing-timeout"):Duration.ofSeconds(30);
+		reconnectTimeout = config.hasPath("game.registry.reconnect-timeout")?config.getDuration("game.registry.reconnect-timeout"):Duration.ofSeconds(60);
 		
-		// Get the list of image files to pre-load the UI with
-		Set<String> images = ImageListForPreLoad.getImageListForPreLoad();
-		
-		try {
-			ObjectNode readyMessage = Json.newObject();
-			readyMessage.put("messagetype", "actorReady");
-			readyMessage.put("preloadImages", mapper.readTree(mapper.writeValueAsString(images)));
-			out.tell(readyMessage, out);
-		} catch (Exception e) {
-			e.printStackTrace();
+		// Games nobody is playing are saved to disk rather than kept in memory
+		this.session = session;
+		store = GameStore.fromConfig(config);
+		idleTimeout = config.hasPath("game.passivation.idle-timeout")?config.getDuration("game.passivation.idle-timeout"):Duration.ofMinutes(10);
+		if (restore && store!=null) restore();
+		active();
+	}
+	
+	/**
+	 * Attaches the front-end to the game, and tells it that the game is ready along with
+	 * the list of images it should pre-load (see PreloadManifest). The actorReady message goes through the
+	 * CommandBatcher so that it is always the first thing the front-end receives. It also
+	 * holds the game's session token, which the front-end sends back if it has to reconnect.
+	 * 
+	 * A front-end that is rejoining a game that was passivated while it was connected is
+	 * already showing the game, so it is not sent actorReady again.
+	 * @param out
+	 * @param rejoin
+	 */
+	private void connect(ActorRef out, boolean rejoin) {
+		this.out = out; // save this, so we can send commands to the front-end later
+		getTimers().cancel(ReconnectTimeout);
+		active();
+		getSender().tell(Attached, self);
+		if (rejoin) {
+			commands.tell(new CommandBatcher.Attach(out, null), self);
+			return;
 		}
+		
+		// The list of image files to pre-load the UI with is only worked out once
+		String ready = PreloadManifest.actorReady(session);
+		commands.tell(new CommandBatcher.Attach(out, ready), self);
+	}
+	
+	/**
+	 * Called when the front-end's websocket has closed. The game is kept for
+	 * game.registry.reconnect-timeout in case the front-end comes back (e.g. the page was
+	 * reloaded or the network dropped). If it does not, the game is passivated, or ends if
+	 * passivation is turned off.
+	 */
+	private void disconnect() {
+		this.out = null;
+		commands.tell(new CommandBatcher.Attach(null, null), self);
+		getTimers().startSingleTimer(ReconnectTimeout, ReconnectTimeout, reconnectTimeout);
 	}
 
 	/**
 	 * This method simply farms out the processing of the json messages from the front-end to the
-	 * processMessage method
+	 * processMessage method. Messages arrive already decoded into a GameEvent and stamped with
+	 * the time they arrived (see InboundMessage). The text of a message can also be sent,
+	 * which is decoded here.
 	 * @return
 	 */
 	public Receive createReceive() {
 		return receiveBuilder()
-				.match(JsonNode.class, message -> {
-					System.out.println(message);
-					processMessage(message.get("messagetype").asText(), message);
+				.match(Connect.class, connect -> connect(connect.out, connect.rejoin))
+				.matchEquals(Disconnect, message -> disconnect())
+				.matchEquals(ReconnectTimeout, message -> {
+					if (store==null) getContext().stop(self);
+					else passivate();
+				})
+				.matchEquals(IdleTimeout, message -> passivate())
+				.match(CommandBatcher.Screen.class, screen -> save(screen.sync))
+				.matchEquals(GetFootprint, message -> {
+					MemoryEstimate estimate = new MemoryEstimate().add(gameState);
+					for (ReceivedEvent waiting : waitingEvents) estimate.add(waiting.event);
+					long stateBytes = estimate.getBytes();
+					commands.forward(new CommandBatcher.GetFootprint(gameId, stateBytes, waitingEvents.size()), getContext());
+				})
+				.match(InboundMessage.class, message -> received(message.getEvent(), message.getReceivedAt()))
+				.match(String.class, message -> received(GameEventDecoder.decode(message), System.nanoTime()))
+				.match(ScheduledTask.class, scheduled -> {
+					scheduled.task.run();
+					sink.flush();
+				})
+				.matchEquals(ProcessingTimeout, message -> {
+					if (finishing!=null && finishing.complete(new TimeoutException("not finished after "+processingTimeout+", carrying on without it"))) {
+						executors.abandon(); // so that the processor cannot change the game in the middle of a later event
+					}
+				})
+				.match(EventProcessed.class, processed -> {
+					getTimers().cancel(ProcessingTimeout);
+					finishing = null;
+					processing = false;
+					sink.flush();
+					while (!processing && !waitingEvents.isEmpty()) {
+						ReceivedEvent waiting = waitingEvents.poll();
+						GameMetrics.waitingEvents.decrementAndGet();
+						processMessage(waiting.event, waiting.receivedAt);
+					}
 				}).build();
 	}
+	
+	private void received(GameEvent event, long receivedAt) throws Exception {
+		if (event==null) return;
+		eventLog.received(event);
+		if (event.getType()!=EventType.heartbeat) active();
+		if (processing) { // keep the events in order
+			waitingEvents.add(new ReceivedEvent(event, receivedAt));
+			GameMetrics.waitingEvents.incrementAndGet();
+		} else {
+			processMessage(event, receivedAt);
+		}
+	}
 
 	/**
-	 * This looks up an event processor for the specified message type.
-	 * Note that this processing is asynchronous.
-	 * @param messageType
-	 * @param message
+	 * This looks up an event processor for the type of event.
+	 * Note that this processing is asynchronous. If the processor has not finished when it
+	 * returns, any events that arrive in the meantime wait until it has, or until
+	 * game.events.processing-timeout has passed, when the failure is logged and the game
+	 * carries on.
+	 * @param event
 	 * @return
 	 * @throws Exception
 	 */
-	@SuppressWarnings({"deprecation"})
-	public void processMessage(String messageType, JsonNode message) throws Exception{
+	public void processMessage(GameEvent event) throws Exception{
+		processMessage(event, System.nanoTime());
+	}
+	
+	/**
+	 * Processes an event, recording how long it waited since it arrived and how long it
+	 * took in the GameMetrics
+	 * @param event
+	 * @param receivedAt System.nanoTime() when the event arrived
+	 * @throws Exception
+	 */
+	private void processMessage(GameEvent event, long receivedAt) throws Exception{
 
-		EventProcessor processor = eventProcessors.get(messageType);
-		if (processor==null) {
-			// Unknown event type received
-			System.err.println("GameActor: Recieved unknown event type "+messageType);
+		long startedAt = System.nanoTime();
+		AsyncEventProcessor processor = event.getType()==null?null:eventProcessors.get(event.getType());
+		CompletionStage<?> processed = AsyncEventProcessor.DONE;
+		if (processor!=null) { // unknown event types have already been logged
+			try {
+				processed = processor.processEvent(sink, gameState, event, executors); // process the event
+			} catch (Exception e) {
+				eventLog.failed(event, e);
+			}
+		}
+		sink.flush(); // send everything the event produced in one go
+		
+		if (processed!=null && !processed.toCompletableFuture().isDone()) {
+			// whichever comes first, the processor finishing or the timeout, lets the next event go
+			processing = true;
+			CompletableFuture<Throwable> finished = new CompletableFuture<Throwable>();
+			finishing = finished;
+			processed.whenComplete((result, error) -> finished.complete(error));
+			getTimers().startSingleTimer(ProcessingTimeout, ProcessingTimeout, processingTimeout);
+			finished.thenAccept(error -> {
+				GameMetrics.eventProcessed(event.getType(), receivedAt, startedAt, System.nanoTime());
+				if (error!=null) eventLog.failed(event, error);
+				self.tell(EventProcessed.instance, ActorRef.noSender());
+			});
 		} else {
-			processor.processEvent(out, gameState, message); // process the event
+			GameMetrics.eventProcessed(event.getType(), receivedAt, startedAt, System.nanoTime());
 		}
 	}
 	
+	/**
+	 * Called when the front-end connects or sends input (heartbeats do not count). The
+	 * game is passivated once this has not been called for game.passivation.idle-timeout.
+	 */
+	private void active() {
+		activity++;
+		if (store!=null) getTimers().startSingleTimer(IdleTimeout, IdleTimeout, idleTimeout);
+	}
+
+	/**
+	 * Starts saving the game to the GameStore so that its actor can be stopped. This
+	 * first asks the CommandBatcher what is on screen, and carries on in save().
+	 */
+	private void passivate() {
+		if (store==null || session==null || passivating) return;
+		if (processing) { // try again once the game is quiet
+			getTimers().startSingleTimer(IdleTimeout, IdleTimeout, idleTimeout);
+			return;
+		}
+		passivating = true;
+		activityAtPassivate = activity;
+		commands.tell(CommandBatcher.GetScreen, self);
+	}
+
+	/**
+	 * Writes the game to the GameStore, and stops the game if nothing has happened in the
+	 * meantime. Events that arrive while it is being written wait as normal, and if any of
+	 * them is input the game carries on instead.
+	 * @param screen
+	 */
+	private void save(ObjectNode screen) {
+		if (activity!=activityAtPassivate) { // something happened while the batcher was asked
+			passivating = false;
+			return;
+		}
+		ObjectNode snapshot = store.snapshot(gameId, gameState, screen);
+		processing = true;
+		executors.blocking(() -> {
+			try {
+				store.save(session, snapshot);
+				return null;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).whenComplete((result, error) -> {
+			passivating = false;
+			if (error==null && activity==activityAtPassivate) {
+				GameMetrics.gamesPassivated.increment();
+				getContext().getParent().tell(new GameRegistry.Passivated(gameId), self);
+				getContext().stop(self);
+				return;
+			}
+			if (error!=null) {
+				logger.warn("game={} session={} could not be saved, will try again later", gameId, session, error);
+				getTimers().startSingleTimer(IdleTimeout, IdleTimeout, idleTimeout); // try again later
+			} else {
+				store.delete(session); // the game is carrying on, so the file is out of date
+			}
+			self.tell(EventProcessed.instance, ActorRef.noSender());
+		});
+	}
+
+	/**
+	 * Loads the game back in from the GameStore. Events wait until it has been loaded.
+	 */
+	private void restore() {
+		processing = true;
+		executors.blocking(() -> {
+			try {
+				return store.load(session);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).whenComplete((snapshot, error) -> {
+			if (error!=null) {
+				logger.warn("game={} session={} could not be loaded, starting again from scratch", gameId, session, error);
+			} else if (snapshot!=null) {
+				snapshot.restore(gameState);
+				commands.tell(new CommandBatcher.Restore(snapshot.screen), self);
+				store.delete(session);
+				GameMetrics.gamesRestored.increment();
+			}
+			self.tell(EventProcessed.instance, ActorRef.noSender());
+		});
+	}
+
+	/**
+	 * Finds one of the dispatchers set up in application.conf, or uses the actor system's
+	 * default dispatcher if it is not there
+	 * @param id
+	 * @return
+	 */
+	private Executor lookupDispatcher(String id) {
+		if (system.dispatchers().hasDispatcher(id)) return system.dispatchers().lookup(id);
+		return system.dispatcher();
+	}
+	
 	
+	/**
+	 * Runs a task on this actor after a delay, without blocking it in the meantime. This is
+	 * what the game's Timeline uses to wait. It can be called from any thread.
+	 * @param delay
+	 * @param task
+	 */
+	public void schedule(Duration delay, Runnable task) {
+		if (delay.isZero()) self.tell(new ScheduledTask(task), ActorRef.noSender());
+		else system.scheduler().scheduleOnce(delay, self, new ScheduledTask(task), system.dispatcher(), ActorRef.noSender());
+	}
+
+	/**
+	 * The message an actor sends itself to run a scheduled task
+	 */
+	private static class ScheduledTask {
+		final Runnable task;
+		ScheduledTask(Runnable task) {
+			this.task = task;
+		}
+	}
+
+	/**
+	 * Send this to a game to attach a front-end to it, either when the game starts or
+	 * when a front-end reconnects. Commands are sent to the front-end from then on. The
+	 * reply is Attached.
+	 */
+	public static class Connect {
+		final ActorRef out;
+		final boolean rejoin;
+		/**
+		 * @param out the websocket connection to the front-end
+		 * @param rejoin true if the front-end is already showing this game, because it was
+		 * passivated while the front-end was connected
+		 */
+		public Connect(ActorRef out, boolean rejoin) {
+			this.out = out;
+			this.rejoin = rejoin;
+		}
+	}
+
+	/**
+	 * The reply to Connect
+	 */
+	public static final Object Attached = "attached";
+
+	/**
+	 * Send this to a game when its front-end has gone away. The game stops if no front-end
+	 * connects again within game.registry.reconnect-timeout.
+	 */
+	public static final Object Disconnect = "disconnect";
+
+	/**
+	 * Asks a game how much memory it is using. The game adds its GameState and passes the
+	 * question on to its CommandBatcher, which adds what is on screen and replies with a
+	 * Footprint.
+	 */
+	public static final Object GetFootprint = "getFootprint";
+
+	/**
+	 * Roughly how much memory one game is using (see MemoryEstimate), not counting what it
+	 * shares with every other game (see GameTemplates)
+	 */
+	public static class Footprint {
+		public final String gameId;
+		public final long stateBytes; // the GameState
+		public final long screenBytes; // what is on screen and waiting to be sent, kept by the CommandBatcher
+		public final int waitingEvents; // events waiting for an earlier one to finish
+		public Footprint(String gameId, long stateBytes, long screenBytes, int waitingEvents) {
+			this.gameId = gameId;
+			this.stateBytes = stateBytes;
+			this.screenBytes = screenBytes;
+			this.waitingEvents = waitingEvents;
+		}
+		public long getTotalBytes() {
+			return stateBytes+screenBytes;
+		}
+	}
+
+	/**
+	 * An event that is waiting for the one before it to finish
+	 */
+	private static class ReceivedEvent {
+		final GameEvent event;
+		final long receivedAt;
+		ReceivedEvent(GameEvent event, long receivedAt) {
+			this.event = event;
+			this.receivedAt = receivedAt;
+		}
+	}
+
+	/**
+	 * The message an actor sends itself when an event processor has finished
+	 */
+	private static class EventProcessed {
+		static final EventProcessed instance = new EventProcessed();
+	}
+
+	@Override
+	public void postStop() {
+		GameMetrics.activeGames.decrementAndGet();
+		GameMetrics.waitingEvents.addAndGet(-waitingEvents.size());
+	}
+
 	public void reportError(String errorText) {
 		ObjectNode returnMessage = Json.newObject();
 		returnMessage.put("messagetype", "ERR");
 		returnMessage.put("error", errorText);
-		out.tell(returnMessage, out);
+		commands.tell(returnMessage, self());
+		commands.tell(CommandBatcher.Flush, self());
 	}
 }
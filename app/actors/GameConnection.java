@@ -0,0 +1,113 @@
+package actors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import commands.CommandEncoder;
+import events.EventType;
+
+/**
+ * There is one GameConnection for each websocket connection to the front-end, created by
+ * the GameScreenController when the websocket opens and stopped when it closes. When it
+ * starts it asks the GameRegistry for a game, attaches the front-end to it, and from then
+ * on passes the events from the front-end straight to that game's GameActor. The game
+ * sends its commands straight to the websocket (out), so they do not pass through here.
+ *
+ * If the front-end gives the session token of a game it was playing, the connection
+ * rejoins that game instead of starting a new one (see GameRegistry).
+ *
+ * If the game is passivated while the front-end is still connected (nobody was playing
+ * it), the next event other than a heartbeat asks the registry for the game again, which
+ * loads it back in. Events wait here in the meantime.
+ *
+ * If the registry turns the connection away (the server is full, or another connection
+ * has taken its game over), the front-end is sent an ERR message and the websocket is
+ * closed. The front-end does not reconnect after an ERR.
+ *
+ * The registry watches each connection, so when one stops its game is disconnected, even
+ * if the registry had not replied yet.
+ *
+ */
+public class GameConnection extends AbstractActor {
+
+	private final ActorRef out; // The websocket connection to the front-end
+	private final ActorRef registry;
+	private String session; // the game's session token, at first the one the front-end gave (or null)
+	private ActorRef game; // null while there is no game, e.g. it has been passivated
+	private boolean joining = false; // true while waiting for the registry
+	private boolean attached = false; // true once the front-end has been attached to a game
+	private List<InboundMessage> early = new ArrayList<InboundMessage>(); // events that arrived while there was no game
+
+	/**
+	 * @param out the websocket connection to the front-end
+	 * @param registry the GameRegistry
+	 * @param session the session token of the game to reconnect to, or null for a new game
+	 * @return
+	 */
+	public static Props props(ActorRef out, ActorRef registry, String session) {
+		return Props.create(GameConnection.class, out, registry, session);
+	}
+
+	public GameConnection(ActorRef out, ActorRef registry, String session) {
+		this.out = out;
+		this.registry = registry;
+		this.session = session;
+	}
+
+	@Override
+	public void preStart() {
+		join();
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(InboundMessage.class, message -> {
+					if (game!=null) {
+						game.tell(message, getSelf());
+					} else if (joining) {
+						early.add(message);
+					} else if (message.getEvent().getType()!=EventType.heartbeat) { // the game was passivated
+						early.add(message);
+						join();
+					}
+				})
+				.match(GameRegistry.Joined.class, joined -> {
+					joining = false;
+					game = joined.game;
+					session = joined.session;
+					getContext().watch(game);
+					game.tell(new GameActor.Connect(out, attached), getSelf());
+					for (InboundMessage message : early) game.tell(message, getSelf());
+					early.clear();
+				})
+				.matchEquals(GameActor.Attached, message -> attached = true)
+				.match(Terminated.class, terminated -> {
+					if (!terminated.actor().equals(game)) return;
+					game = null;
+					if (!attached) join(); // it stopped before the front-end was attached, so try again now
+				})
+				.match(GameRegistry.Rejected.class, rejected -> {
+					ObjectNode error = CommandEncoder.newMessage("ERR");
+					error.put("error", rejected.reason);
+					out.tell(CommandEncoder.toText(error), getSelf());
+					getContext().stop(getSelf()); // closes the websocket
+				})
+				.build();
+	}
+
+	/**
+	 * Asks the registry for this connection's game
+	 */
+	private void join() {
+		joining = true;
+		registry.tell(new GameRegistry.Connect(getSelf(), out, session), getSelf());
+	}
+
+}
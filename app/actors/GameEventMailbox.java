@@ -0,0 +1,83 @@
+package actors;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.MessageQueue;
+import events.EventType;
+import metrics.GameMetrics;
+import scala.Option;
+
+/**
+ * The GameActor's mailbox. It is an InstrumentedMailbox that lets the user's input jump
+ * the queue, so that clicks are handled quickly even when the actor is busy. Messages are
+ * taken in this order:
+ *  1. events from the front-end other than heartbeats (e.g. tileclicked, cardclicked,
+ *     endturnclicked, unitstopped), in the order they arrived
+ *  2. everything else (e.g. the tasks run by the game's Timeline), in the order they arrived
+ *  3. the latest heartbeat
+ *
+ * Only one heartbeat is ever waiting. If another arrives before the actor gets to it, the
+ * older one is dropped, as a heartbeat only says that the front-end is still there.
+ *
+ * It is set up as game-actor-mailbox in application.conf, along with the limits that the
+ * InstrumentedMailbox warns about.
+ *
+ */
+public class GameEventMailbox extends InstrumentedMailbox {
+
+	public GameEventMailbox(ActorSystem.Settings settings, Config config) {
+		super(settings, config);
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new GameEventQueue(nameOf(owner), getWarnDepth(), getWarnTimeInQueue());
+	}
+
+	/**
+	 * The queue for one GameActor
+	 */
+	public static class GameEventQueue extends InstrumentedQueue {
+
+		private final Queue<Timed> input = new ConcurrentLinkedQueue<Timed>();
+		private final Queue<Timed> other = new ConcurrentLinkedQueue<Timed>();
+		private final AtomicReference<Timed> heartbeat = new AtomicReference<Timed>();
+
+		protected GameEventQueue(String owner, int warnDepth, long warnTimeInQueue) {
+			super(owner, warnDepth, warnTimeInQueue);
+		}
+
+		@Override
+		protected void offer(Timed message) {
+			Object contents = message.envelope.message();
+			if (contents instanceof InboundMessage) {
+				if (((InboundMessage)contents).getEvent().getType()==EventType.heartbeat) {
+					if (heartbeat.getAndSet(message)!=null) {
+						removed(1); // the older heartbeat is dropped
+						GameMetrics.heartbeatsCoalesced.increment();
+					}
+				} else {
+					input.offer(message);
+				}
+			} else {
+				other.offer(message);
+			}
+		}
+
+		@Override
+		protected Timed poll() {
+			Timed next = input.poll();
+			if (next==null) next = other.poll();
+			if (next==null) next = heartbeat.getAndSet(null);
+			return next;
+		}
+
+	}
+
+}
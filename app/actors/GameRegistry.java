@@ -0,0 +1,379 @@
+package actors;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.typesafe.config.Config;
+
+import akka.actor.AbstractActorWithTimers;
+import akka.actor.ActorRef;
+import akka.actor.Terminated;
+import akka.dispatch.Dispatchers;
+import akka.pattern.Patterns;
+import metrics.GameMetrics;
+
+/**
+ * The GameRegistry owns every game running on this server. There is one of these per
+ * server (see Module), and each websocket connection (a GameConnection) asks it for a game
+ * when it opens. The registry:
+ *  - gives each game an id, and creates its GameActor as one of its children
+ *  - keeps track of the games and the connections to them, so that they can be found
+ *    and counted
+ *  - turns connections away once game.registry.max-games games are running, so that a
+ *    server never takes on more games than it has been sized for
+ *  - gives each game a session token, so that a front-end that loses its connection (e.g.
+ *    the page is reloaded) can reconnect to the same game rather than starting a new one.
+ *    A game with no connection is kept for game.registry.reconnect-timeout (see GameActor).
+ *  - brings passivated games back (see GameStore). A game that nobody is playing saves
+ *    itself to disk and stops, and the next Connect with its session token starts a new
+ *    GameActor that loads it back in. Saved games that nobody comes back to within
+ *    game.passivation.keep-for are deleted.
+ *
+ * Messages:
+ *  - Connect, from a GameConnection. The reply is Joined, or Rejected if the server is full.
+ *    A Connect with the session token of a running game joins that game, taking over from
+ *    any connection it already has.
+ *  - Disconnect, when a game's websocket closes. A GameConnection that stops is treated
+ *    the same way.
+ *  - Passivated, from a GameActor that has saved itself and is stopping
+ *  - Find, the reply is a Found holding the game's GameActor (or null)
+ *  - GetStats, the reply is a Stats
+ *  - GetFootprints, the reply is a Footprints
+ *
+ */
+public class GameRegistry extends AbstractActorWithTimers {
+
+	/**
+	 * A new websocket connection asking for a game
+	 */
+	public static class Connect {
+		final ActorRef connection;
+		final ActorRef out;
+		final String session;
+		/**
+		 * @param connection the GameConnection asking, which the registry watches so that it
+		 * knows when it has gone
+		 * @param out the websocket connection to the front-end
+		 * @param session the session token of the game to reconnect to, or null for a new game
+		 */
+		public Connect(ActorRef connection, ActorRef out, String session) {
+			this.connection = connection;
+			this.out = out;
+			this.session = session;
+		}
+	}
+
+	/**
+	 * The reply to Connect when a game has been set up for the connection
+	 */
+	public static class Joined {
+		public final String gameId;
+		public final ActorRef game;
+		public final String session;
+		public Joined(String gameId, ActorRef game, String session) {
+			this.gameId = gameId;
+			this.game = game;
+			this.session = session;
+		}
+	}
+
+	/**
+	 * The reply to Connect when the connection has been turned away. It is also sent to a
+	 * game's connection when another one takes the game over, so that the old page stops
+	 * instead of reconnecting and taking the game back.
+	 */
+	public static class Rejected {
+		public final String reason;
+		public Rejected(String reason) {
+			this.reason = reason;
+		}
+	}
+
+	/**
+	 * Tells the registry that a game's websocket has closed. This is ignored if another
+	 * connection has taken over the game since. The registry also watches each
+	 * GameConnection and treats it stopping as a Disconnect, so a connection that closes
+	 * before it has been told its game is still disconnected.
+	 */
+	public static class Disconnect {
+		final String gameId;
+		final ActorRef out;
+		/**
+		 * @param gameId
+		 * @param out the websocket connection that closed
+		 */
+		public Disconnect(String gameId, ActorRef out) {
+			this.gameId = gameId;
+			this.out = out;
+		}
+	}
+
+	/**
+	 * Sent by a GameActor that has saved itself to the GameStore, just before it stops. From
+	 * then on its session token loads it back in from the store.
+	 */
+	public static class Passivated {
+		final String gameId;
+		public Passivated(String gameId) {
+			this.gameId = gameId;
+		}
+	}
+
+	/**
+	 * Asks for the GameActor of a game
+	 */
+	public static class Find {
+		final String gameId;
+		public Find(String gameId) {
+			this.gameId = gameId;
+		}
+	}
+
+	/**
+	 * The reply to Find
+	 */
+	public static class Found {
+		public final String gameId;
+		public final ActorRef game; // null if there is no such game
+		public Found(String gameId, ActorRef game) {
+			this.gameId = gameId;
+			this.game = game;
+		}
+	}
+
+	/**
+	 * Asks for a Stats
+	 */
+	public static final Object GetStats = "getStats";
+
+	/**
+	 * The number of games and connections on this server
+	 */
+	public static class Stats {
+		public final int games;
+		public final int connections;
+		public final int maxGames;
+		public Stats(int games, int connections, int maxGames) {
+			this.games = games;
+			this.connections = connections;
+			this.maxGames = maxGames;
+		}
+	}
+
+	/**
+	 * Asks every game how much memory it is using. The reply is a Footprints.
+	 */
+	public static final Object GetFootprints = "getFootprints";
+
+	/**
+	 * The reply to GetFootprints. Games that did not answer in time are left out.
+	 */
+	public static class Footprints {
+		public final List<GameActor.Footprint> games;
+		public Footprints(List<GameActor.Footprint> games) {
+			this.games = games;
+		}
+	}
+
+	/**
+	 * What the registry knows about one game
+	 */
+	private static class Entry {
+		final String gameId;
+		final ActorRef game;
+		final String session;
+		ActorRef connection; // the GameConnection, null while the game is waiting for its front-end to come back
+		ActorRef out; // that connection's websocket
+		Entry(String gameId, ActorRef game, String session) {
+			this.gameId = gameId;
+			this.game = game;
+			this.session = session;
+		}
+	}
+
+	private final Map<String,Entry> games = new HashMap<String,Entry>(); // game id -> game
+	private final Map<ActorRef,String> gameIds = new HashMap<ActorRef,String>(); // GameActor -> game id, to tidy up when a game stops
+	private final Map<String,String> sessions = new HashMap<String,String>(); // session token -> game id
+	private final Map<ActorRef,String> connectionGames = new HashMap<ActorRef,String>(); // GameConnection -> game id, to disconnect it when it stops
+	private final SecureRandom random = new SecureRandom();
+	private final GameStore store; // where passivated games are kept, null if games are never passivated
+	private final Duration keepFor; // how long passivated games are kept
+	private final int maxGames;
+	private long nextGameId = 0;
+	private int connections = 0;
+
+	public GameRegistry() {
+		Config config = getContext().getSystem().settings().config();
+		maxGames = config.hasPath("game.registry.max-games")?config.getInt("game.registry.max-games"):500;
+		store = GameStore.fromConfig(config);
+		keepFor = config.hasPath("game.passivation.keep-for")?config.getDuration("game.passivation.keep-for"):Duration.ofDays(7);
+		if (store!=null) getTimers().startTimerWithFixedDelay(DeleteExpired, DeleteExpired, Duration.ofHours(1));
+	}
+
+	private static final Object DeleteExpired = "deleteExpired";
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(Connect.class, this::connect)
+				.match(Disconnect.class, this::disconnect)
+				.match(Passivated.class, this::passivated)
+				.matchEquals(DeleteExpired, message -> deleteExpired())
+				.match(Terminated.class, terminated -> {
+					if (gameIds.containsKey(terminated.actor())) stopped(terminated.actor());
+					else connectionStopped(terminated.actor());
+				})
+				.match(Find.class, find -> {
+					Entry entry = games.get(find.gameId);
+					getSender().tell(new Found(find.gameId, entry==null?null:entry.game), getSelf());
+				})
+				.matchEquals(GetStats, message -> getSender().tell(new Stats(games.size(), connections, maxGames), getSelf()))
+				.matchEquals(GetFootprints, message -> footprints())
+				.build();
+	}
+
+	private void connect(Connect connect) {
+		String resumed = connect.session==null?null:sessions.get(connect.session);
+		if (resumed!=null) {
+			resume(resumed, games.get(resumed), connect);
+			return;
+		}
+
+		if (games.size()>=maxGames) {
+			getSender().tell(new Rejected("This server is full, please try again later"), getSelf());
+			return;
+		}
+
+		boolean restore = store!=null && store.contains(connect.session);
+		String session = restore?connect.session:newSession();
+		String gameId = String.valueOf(++nextGameId);
+		ActorRef game = getContext().actorOf(GameActor.props(gameId, session, restore), "game-"+gameId);
+		getContext().watch(game);
+		Entry entry = new Entry(gameId, game, session);
+		games.put(gameId, entry);
+		gameIds.put(game, gameId);
+		sessions.put(entry.session, gameId);
+
+		connected(entry, connect);
+		getSender().tell(new Joined(gameId, game, entry.session), getSelf());
+	}
+
+	/**
+	 * Attaches a connection to a game that is already running. If the game still has
+	 * another connection, that one is told it has been replaced, and closes.
+	 */
+	private void resume(String gameId, Entry entry, Connect connect) {
+		if (entry.connection!=null) {
+			entry.connection.tell(new Rejected("This game has been opened somewhere else"), getSelf()); // no longer watched once disconnected below
+			disconnected(entry);
+		}
+		connected(entry, connect);
+		getSender().tell(new Joined(gameId, entry.game, entry.session), getSelf());
+	}
+
+	private void disconnect(Disconnect disconnect) {
+		Entry entry = games.get(disconnect.gameId);
+		if (entry==null || entry.out==null || !entry.out.equals(disconnect.out)) return;
+
+		disconnected(entry);
+		entry.game.tell(GameActor.Disconnect, getSelf());
+	}
+
+	/**
+	 * A GameConnection has stopped, perhaps before it was told its game. If it is still
+	 * the game's connection, the game is disconnected.
+	 */
+	private void connectionStopped(ActorRef connection) {
+		String gameId = connectionGames.get(connection);
+		Entry entry = gameId==null?null:games.get(gameId);
+		if (entry==null || !connection.equals(entry.connection)) return;
+		disconnected(entry);
+		entry.game.tell(GameActor.Disconnect, getSelf());
+	}
+
+	/**
+	 * Forgets about a game that has saved itself, so that the next Connect with its session
+	 * token loads it back in. Any Connect that was sent to it before this arrived is answered
+	 * with Terminated (see GameConnection).
+	 */
+	private void passivated(Passivated passivated) {
+		Entry entry = games.remove(passivated.gameId);
+		if (entry==null) return;
+		sessions.remove(entry.session);
+		if (entry.connection!=null) disconnected(entry);
+	}
+
+	/**
+	 * Deletes passivated games that have not been come back to, away from the registry's
+	 * own thread as it has to go through the files
+	 */
+	private void deleteExpired() {
+		Dispatchers dispatchers = getContext().getSystem().dispatchers();
+		Executor blocking = dispatchers.hasDispatcher("game.dispatchers.blocking")?dispatchers.lookup("game.dispatchers.blocking"):getContext().getDispatcher();
+		CompletableFuture.runAsync(() -> store.deleteOlderThan(keepFor), blocking);
+	}
+
+	/**
+	 * Asks each game for its footprint, and replies once they have all answered (or taken
+	 * too long)
+	 */
+	private void footprints() {
+		List<CompletableFuture<Object>> replies = new ArrayList<CompletableFuture<Object>>(games.size());
+		for (Entry entry : games.values()) {
+			replies.add(Patterns.ask(entry.game, GameActor.GetFootprint, Duration.ofSeconds(5)).toCompletableFuture().exceptionally(e -> null));
+		}
+		CompletableFuture<Footprints> footprints = CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			List<GameActor.Footprint> answered = new ArrayList<GameActor.Footprint>(replies.size());
+			for (CompletableFuture<Object> reply : replies) {
+				if (reply.join() instanceof GameActor.Footprint) answered.add((GameActor.Footprint)reply.join());
+			}
+			return new Footprints(answered);
+		});
+		Patterns.pipe(footprints, getContext().getDispatcher()).to(getSender());
+	}
+
+	private void connected(Entry entry, Connect connect) {
+		entry.connection = connect.connection;
+		entry.out = connect.out;
+		getContext().watch(connect.connection);
+		connectionGames.put(connect.connection, entry.gameId);
+		connections++;
+		GameMetrics.connections.incrementAndGet();
+	}
+
+	private void disconnected(Entry entry) {
+		getContext().unwatch(entry.connection);
+		connectionGames.remove(entry.connection);
+		entry.connection = null;
+		entry.out = null;
+		connections--;
+		GameMetrics.connections.decrementAndGet();
+	}
+
+	private void stopped(ActorRef game) {
+		String gameId = gameIds.remove(game);
+		if (gameId==null) return;
+		Entry entry = games.remove(gameId);
+		if (entry==null) return; // passivated
+		sessions.remove(entry.session);
+		if (entry.connection!=null) disconnected(entry);
+	}
+
+	/**
+	 * A token that cannot be guessed, which the front-end keeps so that it can reconnect
+	 * @return
+	 */
+	private String newSession() {
+		byte[] bytes = new byte[18];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+}
@@ -0,0 +1,192 @@
+package actors;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+
+import structures.GameState;
+
+/**
+ * Keeps games that have been passivated (see GameActor) as files on the local disk, so
+ * that a game nobody is playing does not take up any memory. There is one file for each
+ * game, named after its session token, holding:
+ *  - the parts of the GameState that are not rebuilt when the game starts again
+ *  - what was on the front-end's screen (a syncState message, see ScreenState), so that
+ *    a front-end can be brought up to date when it comes back
+ *
+ * {
+ *   gameId = "12"
+ *   savedAt = 1700000000000
+ *   state = { gameInitalised = true, something = true, highlights = [[0,0,...], ...] }
+ *   screen = { messagetype = "syncState", commands = [...] }
+ * }
+ *
+ * Anything added to GameState that should survive passivation must also be added to
+ * snapshot() and Snapshot.restore().
+ *
+ * Files are written to a temporary file first and then moved into place, so a file is
+ * never half written. This is set up by game.passivation in application.conf.
+ *
+ */
+public class GameStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(GameStore.class);
+	private static final Pattern validSession = Pattern.compile("[A-Za-z0-9_-]{1,64}"); // session tokens are used as file names
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final Path directory;
+
+	/**
+	 * A game read back from its file
+	 */
+	public static class Snapshot {
+		public final String gameId;
+		public final long savedAt;
+		private final JsonNode state;
+		public final ObjectNode screen;
+		Snapshot(String gameId, long savedAt, JsonNode state, ObjectNode screen) {
+			this.gameId = gameId;
+			this.savedAt = savedAt;
+			this.state = state;
+			this.screen = screen;
+		}
+
+		/**
+		 * Copies the saved state into a new GameState
+		 * @param gameState
+		 */
+		public void restore(GameState gameState) {
+			gameState.gameInitalised = state.get("gameInitalised").asBoolean();
+			gameState.something = state.get("something").asBoolean();
+			JsonNode highlights = state.get("highlights");
+			for (int x = 0; x<highlights.size(); x++) {
+				for (int y = 0; y<highlights.get(x).size(); y++) {
+					gameState.highlights.setMode(x, y, highlights.get(x).get(y).asInt());
+				}
+			}
+		}
+	}
+
+	public GameStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * The store set up in application.conf
+	 * @param config
+	 * @return the store, or null if passivation is turned off
+	 */
+	public static GameStore fromConfig(Config config) {
+		if (config.hasPath("game.passivation.enabled") && !config.getBoolean("game.passivation.enabled")) return null;
+		String directory = config.hasPath("game.passivation.directory")?config.getString("game.passivation.directory"):"data/games";
+		return new GameStore(Paths.get(directory));
+	}
+
+	/**
+	 * Whether there is a passivated game with this session token. This only looks at the
+	 * file system, so it is quick enough to call from the GameRegistry.
+	 * @param session
+	 * @return
+	 */
+	public boolean contains(String session) {
+		return session!=null && validSession.matcher(session).matches() && Files.exists(fileFor(session));
+	}
+
+	/**
+	 * Takes a copy of a game, ready to be written with save(). This should be called on
+	 * the game's own thread, so that the GameState does not change while it is copied.
+	 * @param gameId
+	 * @param gameState
+	 * @param screen the syncState message for what is on screen
+	 * @return
+	 */
+	public ObjectNode snapshot(String gameId, GameState gameState, JsonNode screen) {
+		ObjectNode snapshot = mapper.createObjectNode();
+		snapshot.put("gameId", gameId);
+		snapshot.put("savedAt", System.currentTimeMillis());
+		ObjectNode state = snapshot.putObject("state");
+		state.put("gameInitalised", gameState.gameInitalised);
+		state.put("something", gameState.something);
+		state.set("highlights", mapper.valueToTree(gameState.highlights.getModes()));
+		snapshot.set("screen", screen.deepCopy());
+		return snapshot;
+	}
+
+	/**
+	 * Writes a game to its file, replacing any earlier one. This blocks, so should not be
+	 * called on a game's own thread.
+	 * @param session
+	 * @param snapshot from snapshot()
+	 * @throws IOException
+	 */
+	public void save(String session, ObjectNode snapshot) throws IOException {
+		if (session==null || !validSession.matcher(session).matches()) throw new IOException("Not a session token: "+session);
+
+		Files.createDirectories(directory);
+		Path temp = directory.resolve(session+".json.tmp");
+		mapper.writeValue(temp.toFile(), snapshot);
+		Files.move(temp, fileFor(session), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a game back from its file
+	 * @param session
+	 * @return the game, or null if there is no file for it
+	 * @throws IOException
+	 */
+	public Snapshot load(String session) throws IOException {
+		if (!contains(session)) return null;
+		JsonNode snapshot = mapper.readTree(fileFor(session).toFile());
+		return new Snapshot(snapshot.get("gameId").asText(), snapshot.get("savedAt").asLong(), snapshot.get("state"), (ObjectNode)snapshot.get("screen"));
+	}
+
+	/**
+	 * Removes a game's file, once it has been loaded back in to a GameActor
+	 * @param session
+	 */
+	public void delete(String session) {
+		if (session==null || !validSession.matcher(session).matches()) return;
+		try {
+			Files.deleteIfExists(fileFor(session));
+		} catch (IOException e) {
+			logger.warn("session={} file could not be deleted", session, e);
+		}
+	}
+
+	/**
+	 * Removes the files of games that have not been played for a long time
+	 * @param age
+	 * @return the number of games removed
+	 */
+	public int deleteOlderThan(Duration age) {
+		if (!Files.isDirectory(directory)) return 0;
+		long cutoff = System.currentTimeMillis()-age.toMillis();
+		int deleted = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+			for (Path file : files) {
+				if (Files.getLastModifiedTime(file).toMillis()<cutoff && Files.deleteIfExists(file)) deleted++;
+			}
+		} catch (IOException e) {
+			logger.warn("directory={} old games could not be deleted, {} were", directory, deleted, e);
+		}
+		return deleted;
+	}
+
+	private Path fileFor(String session) {
+		return directory.resolve(session+".json");
+	}
+
+}
@@ -0,0 +1,43 @@
+package actors;
+
+import events.GameEvent;
+import events.GameEventDecoder;
+
+/**
+ * An event from the front-end, along with when it arrived on the websocket
+ * (System.nanoTime()). Events are decoded as they come off the websocket, before they
+ * reach the GameActor's mailbox, so that the mailbox can see what type they are (see
+ * GameEventMailbox). The time is used to measure how long events wait before the
+ * GameActor gets to them, see GameMetrics.
+ *
+ */
+public class InboundMessage {
+
+	private final GameEvent event;
+	private final long receivedAt;
+
+	public InboundMessage(GameEvent event, long receivedAt) {
+		this.event = event;
+		this.receivedAt = receivedAt;
+	}
+
+	/**
+	 * Decodes the text of a websocket message
+	 * @param text
+	 * @param receivedAt
+	 * @return the message, or null if the text is not an event
+	 */
+	public static InboundMessage decode(String text, long receivedAt) {
+		GameEvent event = GameEventDecoder.decode(text);
+		return event==null?null:new InboundMessage(event, receivedAt);
+	}
+
+	public GameEvent getEvent() {
+		return event;
+	}
+
+	public long getReceivedAt() {
+		return receivedAt;
+	}
+
+}
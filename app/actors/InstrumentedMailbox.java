@@ -0,0 +1,206 @@
+package actors;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import metrics.GameMetrics;
+import scala.Option;
+
+/**
+ * A mailbox that measures itself, used by the GameActor so that we can tell whether a game
+ * is slow because messages are queueing up (it is falling behind its websocket) or because
+ * each message takes a long time to process. For every GameActor mailbox it tracks:
+ *  - how many messages are waiting (the depth), and the most that have ever been waiting
+ *  - how long each message waited in the queue before the actor got to it
+ *
+ * These are added up across all games in GameMetrics, and reported at /metrics. A warning
+ * is logged when a mailbox gets deeper than warn-depth, or when messages start waiting for
+ * longer than warn-time-in-queue. It is set up in application.conf:
+ *
+ *   game-actor-mailbox {
+ *     mailbox-type = "actors.InstrumentedMailbox"
+ *     warn-depth = 100
+ *     warn-time-in-queue = 1 second
+ *   }
+ *
+ */
+public class InstrumentedMailbox implements MailboxType, ProducesMessageQueue<InstrumentedMailbox.InstrumentedQueue> {
+
+	private static final Logger logger = LoggerFactory.getLogger(InstrumentedMailbox.class);
+
+	private final int warnDepth;
+	private final long warnTimeInQueue; // nanoseconds
+
+	/**
+	 * Called by Akka with the mailbox's section of application.conf
+	 * @param settings
+	 * @param config
+	 */
+	public InstrumentedMailbox(ActorSystem.Settings settings, Config config) {
+		warnDepth = config.hasPath("warn-depth")?config.getInt("warn-depth"):100;
+		warnTimeInQueue = (config.hasPath("warn-time-in-queue")?config.getDuration("warn-time-in-queue"):Duration.ofSeconds(1)).toNanos();
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new InstrumentedQueue(nameOf(owner), warnDepth, warnTimeInQueue);
+	}
+
+	protected int getWarnDepth() {
+		return warnDepth;
+	}
+
+	protected long getWarnTimeInQueue() {
+		return warnTimeInQueue;
+	}
+
+	/**
+	 * The name of the actor that a queue belongs to, used in the warnings
+	 * @param owner
+	 * @return
+	 */
+	protected static String nameOf(Option<ActorRef> owner) {
+		return owner.isDefined()?owner.get().path().toString():"unknown";
+	}
+
+	/**
+	 * A message along with when it was put in the queue
+	 */
+	protected static class Timed {
+		final Envelope envelope;
+		final long enqueuedAt;
+		Timed(Envelope envelope, long enqueuedAt) {
+			this.envelope = envelope;
+			this.enqueuedAt = enqueuedAt;
+		}
+	}
+
+	/**
+	 * The queue for one actor. Messages are kept in arrival order.
+	 */
+	public static class InstrumentedQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+
+		private final Queue<Timed> queue = new ConcurrentLinkedQueue<Timed>();
+		private final AtomicInteger depth = new AtomicInteger();
+		private final AtomicInteger maxDepth = new AtomicInteger();
+		private final String owner;
+		private final int warnDepth;
+		private final long warnTimeInQueue;
+		private volatile boolean slow = false; // true once messages are waiting longer than warnTimeInQueue
+
+		protected InstrumentedQueue(String owner, int warnDepth, long warnTimeInQueue) {
+			this.owner = owner;
+			this.warnDepth = warnDepth;
+			this.warnTimeInQueue = warnTimeInQueue;
+		}
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			added(1); // counted first, so that hasMessages() is never false while a message is waiting
+			offer(new Timed(handle, System.nanoTime()));
+		}
+
+		@Override
+		public Envelope dequeue() {
+			Timed next = poll();
+			if (next==null) return null;
+			removed(1);
+
+			long waited = System.nanoTime()-next.enqueuedAt;
+			GameMetrics.mailboxTimeInQueue.record(waited);
+			if (waited>=warnTimeInQueue) {
+				if (!slow) {
+					slow = true;
+					logger.warn("mailbox={} messages are waiting {}ms to be processed, depth={}", owner, waited/1_000_000, depth.get());
+				}
+			} else {
+				slow = false;
+			}
+			return next.envelope;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return depth.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return depth.get()>0;
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			Timed next;
+			while ((next = poll())!=null) {
+				removed(1);
+				deadLetters.enqueue(owner, next.envelope);
+			}
+		}
+
+		/**
+		 * @return the most messages that have been waiting in this queue at once
+		 */
+		public int getMaxDepth() {
+			return maxDepth.get();
+		}
+
+		/**
+		 * Adds a message to the queue
+		 * @param message
+		 */
+		protected void offer(Timed message) {
+			queue.offer(message);
+		}
+
+		/**
+		 * Takes the next message to process from the queue
+		 * @return the message, or null if there are none
+		 */
+		protected Timed poll() {
+			return queue.poll();
+		}
+
+		/**
+		 * Records that messages have been added to the queue
+		 * @param count
+		 */
+		protected void added(int count) {
+			int now = depth.addAndGet(count);
+			GameMetrics.mailboxDepth.add(count);
+
+			int max = maxDepth.get();
+			while (now>max && !maxDepth.compareAndSet(max, now)) max = maxDepth.get();
+			if (now>GameMetrics.mailboxMaxDepth.get()) GameMetrics.mailboxMaxDepth.accumulateAndGet(now, Math::max);
+
+			if (now>=warnDepth && now-count<warnDepth) {
+				logger.warn("mailbox={} has {} messages waiting, the actor is falling behind", owner, now);
+			}
+		}
+
+		/**
+		 * Records that messages have been taken out of (or dropped from) the queue
+		 * @param count
+		 */
+		protected void removed(int count) {
+			depth.addAndGet(-count);
+			GameMetrics.mailboxDepth.add(-count);
+		}
+
+	}
+
+}
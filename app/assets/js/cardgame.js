@@ -85,6 +85,39 @@ function drawTile(message) {
 	
 }
 
+// Draws every tile on the board from a single drawBoard message. The position of each
+// tile is worked out from the grid in the same way as BasicObjectBuilders.loadTile
+function drawBoard(message) {
+	var grid = message.grid;
+	for (var y = 0; y < grid.gridysize; y++) {
+		for (var x = 0; x < grid.gridxsize; x++) {
+			drawTileQueue.push({
+				tile: {
+					tileTextures: message.tile.tileTextures,
+					xpos: (message.tile.width*x)+(grid.gridmargin*x)+grid.gridTopLeftx,
+					ypos: (message.tile.height*y)+(grid.gridmargin*y)+grid.gridTopLefty,
+					width: message.tile.width,
+					height: message.tile.height,
+					tilex: x,
+					tiley: y
+				},
+				mode: message.modes[(y*grid.gridxsize)+x]
+			});
+		}
+	}
+}
+
+// Changes the mode of tiles that have already been drawn, message.tiles holds
+// (tilex, tiley, mode) triples
+function drawTiles(message) {
+	for (var i = 0; i+2 < message.tiles.length; i += 3) {
+		drawTileQueue.push({
+			tile: { tilex: message.tiles[i], tiley: message.tiles[i+1] },
+			mode: message.tiles[i+2]
+		});
+	}
+}
+
 function tileClicked(eventData) {
 	ws.send(JSON.stringify({
     		messagetype: "tileclicked",
@@ -835,6 +868,23 @@ function setPlayer2Mana(message) {
 	}	
 }
 
+// Sets the health and/or mana of both players from one message,
+// any player or value that is missing is left as it is
+function setPlayerStats(message) {
+	
+	var player1 = message.player1;
+	if (player1 != null) {
+		if (player1.health != null) setPlayer1Health({player: player1});
+		if (player1.mana != null) setPlayer1Mana({player: player1});
+	}
+	
+	var player2 = message.player2;
+	if (player2 != null) {
+		if (player2.health != null) setPlayer2Health({player: player2});
+		if (player2.mana != null) setPlayer2Mana({player: player2});
+	}
+}
+
 function addPlayer1Notification(message) {
 	if (player1Notification==null) {
 		// we need to create a new notification
@@ -951,12 +1001,12 @@ function play(){
 	
 	// Draw Tile Actions
 	while (drawTileQueue.length>0) {
-		drawTile(drawTileQueue.pop());
+		drawTile(drawTileQueue.shift());
 	}
 	
 	// Draw Tile Actions
 	while (drawUnitQueue.length>0) {
-		drawUnit(drawUnitQueue.pop());
+		drawUnit(drawUnitQueue.shift());
 	}
 	
 	var continuingProjectiles = [];
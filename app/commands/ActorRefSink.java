@@ -0,0 +1,46 @@
+package commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import actors.CommandBatcher;
+import akka.actor.ActorRef;
+
+/**
+ * Sends commands to an actor, normally the CommandBatcher that is attached to a game's
+ * websocket connection. This is the sink used when a game is being played in a browser.
+ *
+ */
+public class ActorRefSink implements CommandSink {
+
+	private final ActorRef out;
+	
+	public ActorRefSink(ActorRef out) {
+		this.out = out;
+	}
+	
+	@Override
+	public void tell(ObjectNode command) {
+		out.tell(command, ActorRef.noSender());
+	}
+	
+	/**
+	 * Asks the CommandBatcher to send anything it is holding
+	 */
+	@Override
+	public void flush() {
+		out.tell(CommandBatcher.Flush, ActorRef.noSender());
+	}
+
+	/**
+	 * Asks the CommandBatcher to send a syncState message
+	 */
+	@Override
+	public void sync() {
+		out.tell(CommandBatcher.Sync, ActorRef.noSender());
+	}
+
+	public ActorRef getActorRef() {
+		return out;
+	}
+	
+}
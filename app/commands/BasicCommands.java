@@ -1,12 +1,14 @@
 package commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.List;
+
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import akka.actor.ActorRef;
-import play.libs.Json;
+import metrics.GameMetrics;
 import structures.basic.Card;
 import structures.basic.EffectAnimation;
+import structures.basic.Grid;
 import structures.basic.Player;
 import structures.basic.Tile;
 import structures.basic.Unit;
@@ -23,12 +25,42 @@ import structures.basic.UnitAnimationType;
  */
 public class BasicCommands {
 
-	private static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
-	
 	// An alternative class with a 'tell' implementation can be given if writing unit tests
-	// and need to have a null ActorRef. This should be null during normal operation.
+	// and need to have a null CommandSink. This should be null during normal operation, and
+	// is only used for commands that are given a null sink.
 	public static DummyTell altTell = null;
 	
+	/**
+	 * Sends a message built by the CommandEncoder to the game's CommandSink (or to altTell
+	 * if no sink was given). Every command is counted in GameMetrics.commands.
+	 * @param out
+	 * @param message
+	 */
+	private static void tell(CommandSink out, ObjectNode message) {
+		GameMetrics.commands.tell(message);
+		if (out==null && altTell!=null) altTell.tell(message);
+		else out.tell(message);
+	}
+	
+	/**
+	 * Commands sent while the GameActor is processing an event are batched together and
+	 * sent to the front-end once the event has been processed. This asks for anything
+	 * that is waiting to be sent straight away, e.g. before a long pause in game logic.
+	 * @param out
+	 */
+	public static void flush(CommandSink out) {
+		if (out!=null) out.flush();
+	}
+	
+	/**
+	 * Redraws everything that is currently on the front-end's screen with a single
+	 * syncState message. This is used when a front-end reconnects to a game that is
+	 * already running, rather than starting the game again.
+	 * @param out
+	 */
+	public static void syncState(CommandSink out) {
+		if (out!=null) out.sync();
+	}
 	
 	/**
 	 * You can consider the contents of the user’s browser window a canvas that can be drawn upon. drawTile will draw 
@@ -44,20 +76,80 @@ public class BasicCommands {
 	 * @param tile
 	 * @param mode
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void drawTile(ActorRef out, Tile tile, int mode) {
+	public static void drawTile(CommandSink out, Tile tile, int mode) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawTile");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.drawTile(tile, mode));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * drawBoard draws every tile on the board in a single command, rather than calling drawTile
+	 * for each tile. It takes the grid (the size and position of the board), a tile to use as
+	 * the template for every tile (its textures and size) and the visualisation mode of each
+	 * tile, indexed as modes[tilex][tiley]. It can also be used to reset the mode of every tile,
+	 * e.g. to clear all highlighting.
+	 * @param out
+	 * @param grid
+	 * @param tile
+	 * @param modes
+	 */
+	public static void drawBoard(CommandSink out, Grid grid, Tile tile, int[][] modes) {
+		try {
+			tell(out, CommandEncoder.drawBoard(grid, tile, modes));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Draws every tile on the board with the same visualisation mode, see drawBoard above.
+	 * @param out
+	 * @param grid
+	 * @param tile
+	 * @param mode
+	 */
+	public static void drawBoard(CommandSink out, Grid grid, Tile tile, int mode) {
+		int[][] modes = new int[grid.getGridxsize()][grid.getGridysize()];
+		if (mode!=0) {
+			for (int[] column : modes) Arrays.fill(column, mode);
+		}
+		drawBoard(out, grid, tile, modes);
+	}
+	
+	/**
+	 * drawTiles changes the visualisation mode of a number of tiles in one command. The tiles
+	 * must already have been drawn (by drawTile or drawBoard). tileModes is a flat list of 
+	 * (tilex, tiley, mode) triples, e.g. {3,2,1, 4,2,1} highlights tiles [3,2] and [4,2].
+	 * @param out
+	 * @param tileModes
+	 */
+	public static void drawTiles(CommandSink out, int[] tileModes) {
+		try {
+			tell(out, CommandEncoder.drawTiles(tileModes));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Sets the visualisation mode of a list of tiles that have already been drawn, see
+	 * drawTiles above.
+	 * @param out
+	 * @param tiles
+	 * @param mode
+	 */
+	public static void drawTiles(CommandSink out, List<Tile> tiles, int mode) {
+		int[] tileModes = new int[tiles.size()*3];
+		for (int i = 0; i<tiles.size(); i++) {
+			tileModes[i*3] = tiles.get(i).getTilex();
+			tileModes[(i*3)+1] = tiles.get(i).getTiley();
+			tileModes[(i*3)+2] = mode;
+		}
+		drawTiles(out, tileModes);
+	}
+	
 	/**
 	 * drawUnit will draw the sprite for a unit (a picture of that unit with its attack and health values) on the board. 
 	 * This command takes as input a target Tile (a ‘square’ of the main game grid) to place the unit’s sprite upon, 
@@ -68,15 +160,9 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void drawUnit(ActorRef out, Unit unit, Tile tile) {
+	public static void drawUnit(CommandSink out, Unit unit, Tile tile) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawUnit");
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.drawUnit(unit, tile));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -90,15 +176,9 @@ public class BasicCommands {
 	 * @param unit
 	 * @param attack
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setUnitAttack(ActorRef out, Unit unit, int attack) {
+	public static void setUnitAttack(CommandSink out, Unit unit, int attack) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setUnitAttack");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("attack", attack);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setUnitAttack(unit, attack));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -112,15 +192,9 @@ public class BasicCommands {
 	 * @param unit
 	 * @param health
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setUnitHealth(ActorRef out, Unit unit, int health) {
+	public static void setUnitHealth(CommandSink out, Unit unit, int health) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setUnitHealth");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("health", health);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setUnitHealth(unit, health));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -134,15 +208,9 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void moveUnitToTile(ActorRef out, Unit unit, Tile tile) {
+	public static void moveUnitToTile(CommandSink out, Unit unit, Tile tile) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "moveUnitToTile");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.moveUnitToTile(unit, tile));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -161,16 +229,9 @@ public class BasicCommands {
 	 * @param unit
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void moveUnitToTile(ActorRef out, Unit unit, Tile tile, boolean yfirst) {
+	public static void moveUnitToTile(CommandSink out, Unit unit, Tile tile, boolean yfirst) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "moveUnitToTile");
-			returnMessage.put("yfirst", yfirst);
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.moveUnitToTile(unit, tile, yfirst));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -184,18 +245,12 @@ public class BasicCommands {
 	 * @param unit
 	 * @param animation
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void playUnitAnimation(ActorRef out, Unit unit, UnitAnimationType animationToPlay) {
+	public static void playUnitAnimation(CommandSink out, Unit unit, UnitAnimationType animationToPlay) {
 		try {
 			
 			unit.setAnimation(animationToPlay);
 			
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "playUnitAnimation");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			returnMessage.put("animation", animationToPlay.toString());
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.playUnitAnimation(unit, animationToPlay));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -208,14 +263,9 @@ public class BasicCommands {
 	 * @param out
 	 * @param unit
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void deleteUnit(ActorRef out, Unit unit) {
+	public static void deleteUnit(CommandSink out, Unit unit) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "deleteUnit");
-			returnMessage.put("unit", mapper.readTree(mapper.writeValueAsString(unit)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.deleteUnit(unit));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -229,14 +279,9 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setPlayer1Health(ActorRef out, Player player) {
+	public static void setPlayer1Health(CommandSink out, Player player) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setPlayer1Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setPlayer("setPlayer1Health", player));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -249,14 +294,9 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setPlayer2Health(ActorRef out, Player player) {
+	public static void setPlayer2Health(CommandSink out, Player player) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setPlayer2Health");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setPlayer("setPlayer2Health", player));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -269,14 +309,9 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setPlayer1Mana(ActorRef out, Player player) {
+	public static void setPlayer1Mana(CommandSink out, Player player) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setPlayer1Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setPlayer("setPlayer1Mana", player));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -290,14 +325,26 @@ public class BasicCommands {
 	 * @param out
 	 * @param player
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void setPlayer2Mana(ActorRef out, Player player) {
+	public static void setPlayer2Mana(CommandSink out, Player player) {
+		try {
+			tell(out, CommandEncoder.setPlayer("setPlayer2Mana", player));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * This command changes the visualised health and mana values in both players' information
+	 * cards in one go. Either player can be null to leave their card unchanged. Note that
+	 * when commands are batched, the four setPlayer1/2 Health/Mana commands issued while
+	 * processing one event are automatically combined into one of these.
+	 * @param out
+	 * @param player1
+	 * @param player2
+	 */
+	public static void setPlayerStats(CommandSink out, Player player1, Player player2) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "setPlayer2Mana");
-			returnMessage.put("player", mapper.readTree(mapper.writeValueAsString(player)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.setPlayerStats(player1, player2));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -314,16 +361,9 @@ public class BasicCommands {
 	 * @param position
 	 * @param mode
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void drawCard(ActorRef out, Card card, int position, int mode) {
+	public static void drawCard(CommandSink out, Card card, int position, int mode) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawCard");
-			returnMessage.put("card", mapper.readTree(mapper.writeValueAsString(card)));
-			returnMessage.put("position", position);
-			returnMessage.put("mode", mode);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.drawCard(card, position, mode));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -335,13 +375,9 @@ public class BasicCommands {
 	 * @param out
 	 * @param position
 	 */
-	public static void deleteCard(ActorRef out, int position) {
+	public static void deleteCard(CommandSink out, int position) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "deleteCard");
-			returnMessage.put("position", position);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.deleteCard(position));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -355,15 +391,9 @@ public class BasicCommands {
 	 * @param effect
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void playEffectAnimation(ActorRef out, EffectAnimation effect, Tile tile) {
+	public static void playEffectAnimation(CommandSink out, EffectAnimation effect, Tile tile) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "playEffectAnimation");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(tile)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.playEffectAnimation(effect, tile));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -378,14 +408,9 @@ public class BasicCommands {
 	 * @param text
 	 * @param displayTimeSeconds
 	 */
-	public static void addPlayer1Notification(ActorRef out, String text, int displayTimeSeconds) {
+	public static void addPlayer1Notification(CommandSink out, String text, int displayTimeSeconds) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "addPlayer1Notification");
-			returnMessage.put("text", text);
-			returnMessage.put("seconds", displayTimeSeconds);
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.addPlayer1Notification(text, displayTimeSeconds));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -397,17 +422,9 @@ public class BasicCommands {
 	 * @param effect
 	 * @param tile
 	 */
-	@SuppressWarnings({"deprecation"})
-	public static void playProjectileAnimation(ActorRef out, EffectAnimation effect, int mode, Tile startTile, Tile targetTile) {
+	public static void playProjectileAnimation(CommandSink out, EffectAnimation effect, int mode, Tile startTile, Tile targetTile) {
 		try {
-			ObjectNode returnMessage = Json.newObject();
-			returnMessage.put("messagetype", "drawProjectile");
-			returnMessage.put("effect", mapper.readTree(mapper.writeValueAsString(effect)));
-			returnMessage.put("tile", mapper.readTree(mapper.writeValueAsString(startTile)));
-			returnMessage.put("targetTile", mapper.readTree(mapper.writeValueAsString(targetTile)));
-			returnMessage.put("mode", mapper.readTree(mapper.writeValueAsString(mode)));
-			if (altTell!=null) altTell.tell(returnMessage);
-			else out.tell(returnMessage, out);
+			tell(out, CommandEncoder.playProjectileAnimation(effect, mode, startTile, targetTile));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
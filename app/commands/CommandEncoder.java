@@ -0,0 +1,223 @@
+package commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+import structures.basic.Card;
+import structures.basic.EffectAnimation;
+import structures.basic.Grid;
+import structures.basic.Player;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import structures.basic.UnitAnimationType;
+
+/**
+ * This class builds the json messages that are sent to the front-end for each of the
+ * commands in BasicCommands. Game objects (tiles, units, cards etc.) are converted
+ * directly into Jackson tree nodes, rather than first being written out to a String
+ * and then parsed back in again, so each message is built in a single pass.
+ *
+ * BasicCommands uses this class to create its messages, but it can also be used on
+ * its own, e.g. to inspect what a command would send without a running front-end.
+ *
+ */
+public class CommandEncoder {
+
+	private static ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects into json trees
+
+	/**
+	 * Converts any object (or anything extending it) into a json tree using its getters,
+	 * in the same way that the ObjectMapper would serialize it to a String.
+	 * @param value
+	 * @return
+	 */
+	public static JsonNode toTree(Object value) {
+		return mapper.valueToTree(value);
+	}
+
+	/**
+	 * Writes a message out as the text of a websocket frame
+	 * @param message
+	 * @return
+	 */
+	public static String toText(JsonNode message) {
+		try {
+			return mapper.writeValueAsString(message);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Creates an empty message with the messagetype field set
+	 * @param messageType
+	 * @return
+	 */
+	public static ObjectNode newMessage(String messageType) {
+		ObjectNode message = Json.newObject();
+		message.put("messagetype", messageType);
+		return message;
+	}
+
+	public static ObjectNode drawTile(Tile tile, int mode) {
+		ObjectNode message = newMessage("drawTile");
+		message.set("tile", toTree(tile));
+		message.put("mode", mode);
+		return message;
+	}
+
+	/**
+	 * Draws the whole board in one message. Only the parts that every tile shares (the
+	 * textures and size) are sent, along with the grid, and the front-end works out
+	 * where each tile goes. The tile modes are sent row by row, so the mode of a tile is
+	 * at index (tiley*gridxsize)+tilex.
+	 * @param grid
+	 * @param tile
+	 * @param modes indexed as modes[tilex][tiley]
+	 * @return
+	 */
+	public static ObjectNode drawBoard(Grid grid, Tile tile, int[][] modes) {
+		ObjectNode message = newMessage("drawBoard");
+		message.set("grid", toTree(grid));
+		ObjectNode tileNode = message.putObject("tile");
+		tileNode.set("tileTextures", toTree(tile.getTileTextures()));
+		tileNode.put("width", tile.getWidth());
+		tileNode.put("height", tile.getHeight());
+		ArrayNode modeArray = message.putArray("modes");
+		for (int y = 0; y<grid.getGridysize(); y++) {
+			for (int x = 0; x<grid.getGridxsize(); x++) {
+				modeArray.add(modes[x][y]);
+			}
+		}
+		return message;
+	}
+
+	/**
+	 * Changes the mode of tiles that have already been drawn
+	 * @param tileModes flattened (tilex, tiley, mode) triples
+	 * @return
+	 */
+	public static ObjectNode drawTiles(int[] tileModes) {
+		ObjectNode message = newMessage("drawTiles");
+		ArrayNode tiles = message.putArray("tiles");
+		for (int value : tileModes) tiles.add(value);
+		return message;
+	}
+
+	public static ObjectNode drawUnit(Unit unit, Tile tile) {
+		ObjectNode message = newMessage("drawUnit");
+		message.set("tile", toTree(tile));
+		message.set("unit", toTree(unit));
+		return message;
+	}
+
+	public static ObjectNode setUnitAttack(Unit unit, int attack) {
+		ObjectNode message = newMessage("setUnitAttack");
+		message.set("unit", toTree(unit));
+		message.put("attack", attack);
+		return message;
+	}
+
+	public static ObjectNode setUnitHealth(Unit unit, int health) {
+		ObjectNode message = newMessage("setUnitHealth");
+		message.set("unit", toTree(unit));
+		message.put("health", health);
+		return message;
+	}
+
+	public static ObjectNode moveUnitToTile(Unit unit, Tile tile) {
+		ObjectNode message = newMessage("moveUnitToTile");
+		message.set("unit", toTree(unit));
+		message.set("tile", toTree(tile));
+		return message;
+	}
+
+	public static ObjectNode moveUnitToTile(Unit unit, Tile tile, boolean yfirst) {
+		ObjectNode message = newMessage("moveUnitToTile");
+		message.put("yfirst", yfirst);
+		message.set("unit", toTree(unit));
+		message.set("tile", toTree(tile));
+		return message;
+	}
+
+	public static ObjectNode playUnitAnimation(Unit unit, UnitAnimationType animationToPlay) {
+		ObjectNode message = newMessage("playUnitAnimation");
+		message.set("unit", toTree(unit));
+		message.put("animation", animationToPlay.toString());
+		return message;
+	}
+
+	public static ObjectNode deleteUnit(Unit unit) {
+		ObjectNode message = newMessage("deleteUnit");
+		message.set("unit", toTree(unit));
+		return message;
+	}
+
+	/**
+	 * Used by the setPlayer1Health, setPlayer2Health, setPlayer1Mana and setPlayer2Mana
+	 * commands, which all send the full player object
+	 * @param messageType
+	 * @param player
+	 * @return
+	 */
+	public static ObjectNode setPlayer(String messageType, Player player) {
+		ObjectNode message = newMessage(messageType);
+		message.set("player", toTree(player));
+		return message;
+	}
+
+	/**
+	 * Sends the health and mana of both players in one message. Either player can be
+	 * null, in which case their stats are left as they are.
+	 * @param player1
+	 * @param player2
+	 * @return
+	 */
+	public static ObjectNode setPlayerStats(Player player1, Player player2) {
+		ObjectNode message = newMessage("setPlayerStats");
+		if (player1!=null) message.putObject("player1").put("health", player1.getHealth()).put("mana", player1.getMana());
+		if (player2!=null) message.putObject("player2").put("health", player2.getHealth()).put("mana", player2.getMana());
+		return message;
+	}
+
+	public static ObjectNode drawCard(Card card, int position, int mode) {
+		ObjectNode message = newMessage("drawCard");
+		message.set("card", toTree(card));
+		message.put("position", position);
+		message.put("mode", mode);
+		return message;
+	}
+
+	public static ObjectNode deleteCard(int position) {
+		ObjectNode message = newMessage("deleteCard");
+		message.put("position", position);
+		return message;
+	}
+
+	public static ObjectNode playEffectAnimation(EffectAnimation effect, Tile tile) {
+		ObjectNode message = newMessage("playEffectAnimation");
+		message.set("effect", toTree(effect));
+		message.set("tile", toTree(tile));
+		return message;
+	}
+
+	public static ObjectNode addPlayer1Notification(String text, int displayTimeSeconds) {
+		ObjectNode message = newMessage("addPlayer1Notification");
+		message.put("text", text);
+		message.put("seconds", displayTimeSeconds);
+		return message;
+	}
+
+	public static ObjectNode playProjectileAnimation(EffectAnimation effect, int mode, Tile startTile, Tile targetTile) {
+		ObjectNode message = newMessage("drawProjectile");
+		message.set("effect", toTree(effect));
+		message.set("tile", toTree(startTile));
+		message.set("targetTile", toTree(targetTile));
+		message.put("mode", mode);
+		return message;
+	}
+
+}
@@ -0,0 +1,37 @@
+package commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A CommandSink is where the commands issued through BasicCommands end up. Each game
+ * has its own sink, which is normally an ActorRefSink that sends commands to the
+ * user's browser. Other sinks can be used to run a game without a front-end, e.g. in
+ * unit tests, simulations or when an AI is playing:
+ *  - ActorRefSink sends commands to the front-end via an actor
+ *  - DiscardSink throws every command away
+ *  - CountingSink counts the commands of each type
+ *  - RecordingSink keeps a list of every command so they can be checked later
+ *
+ */
+public interface CommandSink {
+
+	/**
+	 * Called with each command message that is issued
+	 * @param command
+	 */
+	public void tell(ObjectNode command);
+	
+	/**
+	 * Called when any commands that are being held back (e.g. batched up) should be
+	 * sent on straight away. Sinks that do not hold commands back do nothing.
+	 */
+	public default void flush() {}
+	
+	/**
+	 * Called when the front-end should be redrawn from scratch with everything that is
+	 * currently on screen, e.g. after it has reconnected. Sinks without a front-end do
+	 * nothing.
+	 */
+	public default void sync() {}
+	
+}
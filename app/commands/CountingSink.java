@@ -0,0 +1,55 @@
+package commands;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A sink that throws commands away, but keeps a count of how many of each type
+ * (messagetype) have been issued. It is safe to share one of these between games
+ * running on different threads, e.g. to count the commands sent during a load test.
+ *
+ */
+public class CountingSink implements CommandSink {
+
+	private final LongAdder total = new LongAdder();
+	private final Map<String,LongAdder> counts = new ConcurrentHashMap<String,LongAdder>();
+
+	@Override
+	public void tell(ObjectNode command) {
+		total.increment();
+		counts.computeIfAbsent(command.get("messagetype").asText(), type -> new LongAdder()).increment();
+	}
+	
+	/**
+	 * The total number of commands issued
+	 * @return
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+	
+	/**
+	 * The number of commands of a given type issued, e.g. getCount("drawTile")
+	 * @param messageType
+	 * @return
+	 */
+	public long getCount(String messageType) {
+		LongAdder count = counts.get(messageType);
+		return count==null?0:count.sum();
+	}
+	
+	/**
+	 * A snapshot of the number of commands issued of each type
+	 * @return
+	 */
+	public Map<String,Long> getCounts() {
+		Map<String,Long> snapshot = new HashMap<String,Long>();
+		counts.forEach((type, count) -> snapshot.put(type, count.sum()));
+		return snapshot;
+	}
+	
+}
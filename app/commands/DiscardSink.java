@@ -0,0 +1,14 @@
+package commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A sink that ignores every command, for running games where nobody is watching.
+ *
+ */
+public class DiscardSink implements CommandSink {
+
+	@Override
+	public void tell(ObjectNode command) {}
+	
+}
@@ -2,7 +2,7 @@ package commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-public interface DummyTell {
+public interface DummyTell extends CommandSink {
 
 	/**
 	 * This is a method that can be used to replace the normal tell logic
@@ -12,8 +12,13 @@ public interface DummyTell {
 	 * If writing a unit test you can add a class that implements this interface
 	 * and set BasicCommands.altTell = <your class> to avoid calling ActorRef.tell
 	 * and call altTell.tell instead.
+	 * 
+	 * Note that altTell is shared by every game in the JVM and is only used when
+	 * a command is given a null CommandSink. New tests should pass their own
+	 * CommandSink (e.g. a RecordingSink) to the commands instead.
 	 * @param message
 	 */
+	@Override
 	public void tell(ObjectNode message);
 	
 }
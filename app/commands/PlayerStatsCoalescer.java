@@ -0,0 +1,84 @@
+package commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A single event (e.g. playing a spell) can change the health and mana of both players,
+ * which would normally be sent as separate setPlayer1Health, setPlayer2Health,
+ * setPlayer1Mana and setPlayer2Mana commands, each holding the whole Player. This combines
+ * all of the player stat commands in a batch into one setPlayerStats command holding only
+ * the latest values.
+ *
+ * {
+ *   messagetype = "setPlayerStats"
+ *   player1 = { health = <health>, mana = <mana> }
+ *   player2 = { health = <health>, mana = <mana> }
+ * }
+ *
+ * Players and values that did not change in the batch are left out.
+ *
+ */
+public class PlayerStatsCoalescer {
+
+	private ObjectNode stats; // the setPlayerStats command for the current batch, null if there is not one yet
+
+	/**
+	 * Adds a command to the combined stats
+	 * @param command
+	 * @return the new setPlayerStats command if this is the first player stat command in
+	 * the batch (which should be added to the batch in its place), null if the command has
+	 * been merged into the existing one, or the command itself if it is not a player stat
+	 * command
+	 */
+	public JsonNode add(JsonNode command) {
+		JsonNode messageType = command.get("messagetype");
+		if (messageType==null) return command;
+
+		switch (messageType.asText()) {
+		case "setPlayer1Health":
+			return merge("player1", "health", command.get("player"));
+		case "setPlayer2Health":
+			return merge("player2", "health", command.get("player"));
+		case "setPlayer1Mana":
+			return merge("player1", "mana", command.get("player"));
+		case "setPlayer2Mana":
+			return merge("player2", "mana", command.get("player"));
+		case "setPlayerStats":
+			JsonNode added = merge("player1", null, command.get("player1"));
+			merge("player2", null, command.get("player2"));
+			return added;
+		default:
+			return command;
+		}
+	}
+
+	/**
+	 * Starts again, e.g. because the batch has been sent
+	 */
+	public void reset() {
+		stats = null;
+	}
+
+	/**
+	 * Copies one value (or all values if field is null) of a player into the combined stats
+	 */
+	private JsonNode merge(String player, String field, JsonNode values) {
+		boolean created = false;
+		if (stats==null) {
+			stats = CommandEncoder.newMessage("setPlayerStats");
+			created = true;
+		}
+		if (values!=null) {
+			ObjectNode playerStats = stats.has(player)?(ObjectNode)stats.get(player):stats.putObject(player);
+			if (field==null || field.equals("health")) copy(values, playerStats, "health");
+			if (field==null || field.equals("mana")) copy(values, playerStats, "mana");
+		}
+		return created?stats:null;
+	}
+
+	private void copy(JsonNode from, ObjectNode to, String field) {
+		if (from.has(field)) to.set(field, from.get(field));
+	}
+
+}
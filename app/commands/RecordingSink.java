@@ -0,0 +1,47 @@
+package commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A sink that keeps every command it is given, in order, so that a test (or an AI) can
+ * look at what would have been sent to the front-end.
+ *
+ */
+public class RecordingSink implements CommandSink {
+
+	private final List<ObjectNode> commands = new ArrayList<ObjectNode>();
+
+	@Override
+	public void tell(ObjectNode command) {
+		commands.add(command);
+	}
+	
+	/**
+	 * All of the commands issued so far
+	 * @return
+	 */
+	public List<ObjectNode> getCommands() {
+		return commands;
+	}
+	
+	/**
+	 * All of the commands of a given type (messagetype) issued so far
+	 * @param messageType
+	 * @return
+	 */
+	public List<ObjectNode> getCommands(String messageType) {
+		List<ObjectNode> matching = new ArrayList<ObjectNode>();
+		for (ObjectNode command : commands) {
+			if (command.get("messagetype").asText().equals(messageType)) matching.add(command);
+		}
+		return matching;
+	}
+	
+	public void clear() {
+		commands.clear();
+	}
+	
+}
@@ -0,0 +1,188 @@
+package commands;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Keeps track of what is currently on the front-end's screen by watching the commands
+ * that are sent to it, so that a front-end that reconnects (e.g. after the page was
+ * reloaded) can be brought up to date with a single syncState message, rather than
+ * replaying every command sent since the game started.
+ *
+ * Only things that stay on screen are kept, one entry for each:
+ *  - the board, from drawBoard, with the mode of each tile updated by drawTile and drawTiles
+ *  - each unit, from drawUnit, moved by moveUnitToTile and removed by deleteUnit, along
+ *    with its latest health and attack
+ *  - each card in the hand, by position
+ *  - the health and mana of each player
+ *
+ * Animations, effects and notifications are not kept, as they would have finished anyway.
+ *
+ * {
+ *   messagetype = "syncState"
+ *   commands = [ <drawBoard>, <drawUnit>, ..., <setUnitHealth>, ..., <drawCard>, ..., <setPlayerStats> ]
+ * }
+ *
+ */
+public class ScreenState {
+
+	private ObjectNode board; // a copy of the last drawBoard, with its modes kept up to date
+	private Map<Integer,ObjectNode> tiles = new LinkedHashMap<Integer,ObjectNode>(); // drawTile commands for tiles drawn on their own, by (tilex*1000)+tiley
+	private Map<Integer,ObjectNode> units = new LinkedHashMap<Integer,ObjectNode>(); // unit id -> drawUnit, in the order they were drawn
+	private Map<Integer,JsonNode> health = new LinkedHashMap<Integer,JsonNode>(); // unit id -> setUnitHealth
+	private Map<Integer,JsonNode> attack = new LinkedHashMap<Integer,JsonNode>(); // unit id -> setUnitAttack
+	private Map<Integer,JsonNode> cards = new TreeMap<Integer,JsonNode>(); // position -> drawCard
+	private ObjectNode playerStats = null; // a setPlayerStats holding the latest health and mana of both players
+
+	/**
+	 * Records a command that has been sent to the front-end. The command is never changed.
+	 * @param command
+	 */
+	public void observe(JsonNode command) {
+		JsonNode messageType = command.get("messagetype");
+		if (messageType==null) return;
+
+		switch (messageType.asText()) {
+		case "drawBoard":
+			board = command.deepCopy();
+			tiles.clear();
+			break;
+		case "drawTile":
+			JsonNode tile = command.get("tile");
+			if (!setMode(tile.get("tilex").asInt(), tile.get("tiley").asInt(), command.get("mode").asInt())) {
+				tiles.put(tileKey(tile.get("tilex").asInt(), tile.get("tiley").asInt()), (ObjectNode)command);
+			}
+			break;
+		case "drawTiles":
+			JsonNode tileModes = command.get("tiles");
+			for (int i = 0; i+2<tileModes.size(); i += 3) {
+				setMode(tileModes.get(i).asInt(), tileModes.get(i+1).asInt(), tileModes.get(i+2).asInt());
+			}
+			break;
+		case "drawUnit":
+			units.put(unitId(command), (ObjectNode)command);
+			break;
+		case "moveUnitToTile":
+			moveUnit(unitId(command), command.get("tile"));
+			break;
+		case "setUnitHealth":
+			health.put(unitId(command), command);
+			break;
+		case "setUnitAttack":
+			attack.put(unitId(command), command);
+			break;
+		case "deleteUnit":
+			int deleted = unitId(command);
+			units.remove(deleted);
+			health.remove(deleted);
+			attack.remove(deleted);
+			break;
+		case "drawCard":
+			cards.put(command.get("position").asInt(), command);
+			break;
+		case "deleteCard":
+			cards.remove(command.get("position").asInt());
+			break;
+		case "setPlayer1Health":
+			setPlayerStat("player1", "health", command.get("player"));
+			break;
+		case "setPlayer2Health":
+			setPlayerStat("player2", "health", command.get("player"));
+			break;
+		case "setPlayer1Mana":
+			setPlayerStat("player1", "mana", command.get("player"));
+			break;
+		case "setPlayer2Mana":
+			setPlayerStat("player2", "mana", command.get("player"));
+			break;
+		case "setPlayerStats":
+			for (String player : new String[] {"player1", "player2"}) {
+				JsonNode stats = command.get(player);
+				if (stats==null) continue;
+				setPlayerStat(player, "health", stats);
+				setPlayerStat(player, "mana", stats);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Builds the syncState message that redraws everything that is on screen
+	 * @return
+	 */
+	public ObjectNode toSync() {
+		ObjectNode message = CommandEncoder.newMessage("syncState");
+		ArrayNode commands = message.putArray("commands");
+		if (board!=null) commands.add(board);
+		commands.addAll(tiles.values());
+		commands.addAll(units.values());
+		commands.addAll(health.values());
+		commands.addAll(attack.values());
+		commands.addAll(cards.values());
+		if (playerStats!=null) commands.add(playerStats);
+		return message;
+	}
+
+	/**
+	 * Rebuilds what is on screen from a syncState message made by toSync(), e.g. when a
+	 * passivated game is loaded back in
+	 * @param sync
+	 */
+	public void restore(JsonNode sync) {
+		for (JsonNode command : sync.get("commands")) observe(command.deepCopy());
+	}
+
+	private boolean setMode(int tilex, int tiley, int mode) {
+		if (board==null) {
+			ObjectNode drawTile = tiles.get(tileKey(tilex, tiley));
+			if (drawTile!=null) {
+				drawTile = drawTile.deepCopy();
+				drawTile.put("mode", mode);
+				tiles.put(tileKey(tilex, tiley), drawTile);
+			}
+			return false;
+		}
+		int xsize = board.get("grid").get("gridxsize").asInt();
+		((ArrayNode)board.get("modes")).set((tiley*xsize)+tilex, IntNode.valueOf(mode));
+		return true;
+	}
+
+	private void moveUnit(int unitId, JsonNode tile) {
+		ObjectNode drawUnit = units.get(unitId);
+		if (drawUnit==null || tile==null) return;
+
+		ObjectNode moved = drawUnit.deepCopy();
+		moved.set("tile", tile);
+		ObjectNode position = ((ObjectNode)moved.get("unit")).putObject("position");
+		position.set("xpos", tile.get("xpos"));
+		position.set("ypos", tile.get("ypos"));
+		position.set("tilex", tile.get("tilex"));
+		position.set("tiley", tile.get("tiley"));
+		units.put(unitId, moved);
+	}
+
+	private void setPlayerStat(String player, String stat, JsonNode values) {
+		if (values==null || values.get(stat)==null) return;
+		if (playerStats==null) playerStats = CommandEncoder.newMessage("setPlayerStats");
+		JsonNode stats = playerStats.get(player);
+		ObjectNode playerNode = stats==null?playerStats.putObject(player):(ObjectNode)stats;
+		playerNode.put(stat, values.get(stat).asInt());
+	}
+
+	private static int unitId(JsonNode command) {
+		return command.get("unit").get("id").asInt();
+	}
+
+	private static int tileKey(int tilex, int tiley) {
+		return (tilex*1000)+tiley;
+	}
+
+}
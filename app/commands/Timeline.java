@@ -0,0 +1,132 @@
+package commands;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * A Timeline is used to sequence visual steps (e.g. move a unit, then attack, then play
+ * the death animation) without blocking the GameActor with Thread.sleep. Steps are added
+ * to the end of the timeline and are run one after another. A step can be some code to
+ * run, a delay, or something to wait for (e.g. a unit to stop moving).
+ *
+ * e.g.
+ *   gameState.timeline
+ *       .run(() -> BasicCommands.playUnitAnimation(out, unit, UnitAnimationType.attack))
+ *       .delay(1000)
+ *       .run(() -> BasicCommands.playUnitAnimation(out, target, UnitAnimationType.death));
+ *
+ * While the timeline is waiting the GameActor carries on processing events as normal,
+ * the waiting is done by a Scheduler (for the GameActor, the Akka scheduler). Steps are
+ * always run on the game's own thread, so they can safely change the GameState.
+ *
+ */
+public class Timeline {
+
+	/**
+	 * Runs a task on the game's thread after a delay. The GameActor does this by
+	 * scheduling a message to itself.
+	 */
+	public interface Scheduler {
+		void schedule(Duration delay, Runnable task);
+	}
+
+	private final Scheduler scheduler;
+	private final Deque<Supplier<CompletionStage<?>>> steps = new ArrayDeque<Supplier<CompletionStage<?>>>();
+	private boolean waiting = false; // true while a delay or await step has not finished
+	private int generation = 0; // increased by clear(), so that steps we were waiting on are ignored
+
+	public Timeline(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Adds a step that runs some code, e.g. issues some commands
+	 * @param step
+	 * @return this timeline, so that steps can be chained
+	 */
+	public Timeline run(Runnable step) {
+		return add(() -> {
+			step.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Adds a pause before the next step
+	 * @param millis
+	 * @return
+	 */
+	public Timeline delay(long millis) {
+		return add(() -> {
+			CompletableFuture<Void> done = new CompletableFuture<Void>();
+			scheduler.schedule(Duration.ofMillis(millis), () -> done.complete(null));
+			return done;
+		});
+	}
+
+	/**
+	 * Adds a step that waits for something to complete before the next step. The
+	 * supplier is only called once the previous steps are done.
+	 * @param stage
+	 * @return
+	 */
+	public Timeline await(Supplier<? extends CompletionStage<?>> stage) {
+		return add(() -> stage.get());
+	}
+
+	/**
+	 * Drops any steps that have not run yet, e.g. because the game has ended
+	 */
+	public void clear() {
+		steps.clear();
+		waiting = false;
+		generation++;
+	}
+
+	/**
+	 * @return true if there is nothing left to run
+	 */
+	public boolean isIdle() {
+		return !waiting && steps.isEmpty();
+	}
+
+	private Timeline add(Supplier<CompletionStage<?>> step) {
+		steps.add(step);
+		advance();
+		return this;
+	}
+
+	/**
+	 * Runs steps until one of them needs to wait
+	 */
+	private void advance() {
+		while (!waiting && !steps.isEmpty()) {
+			CompletionStage<?> wait = null;
+			try {
+				wait = steps.poll().get();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
+			if (wait!=null) {
+				waiting = true;
+				int current = generation;
+				wait.whenComplete((result, error) -> {
+					if (error!=null) error.printStackTrace();
+					scheduler.schedule(Duration.ZERO, () -> resume(current));
+				});
+			}
+		}
+	}
+
+	private void resume(int expectedGeneration) {
+		if (expectedGeneration!=generation) return;
+		waiting = false;
+		advance();
+	}
+
+}
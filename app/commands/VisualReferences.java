@@ -0,0 +1,106 @@
+package commands;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.libs.Json;
+
+/**
+ * Most of the size of a command comes from the visual definition of the unit or card it
+ * refers to (e.g. the full list of animation frames for a unit). The front-end only
+ * needs to see each of these once per session, so this class keeps track of which
+ * definitions the front-end already has and cuts later commands down to a reference.
+ *
+ * Units are referenced by their unit id, and are sent in full by drawUnit (or by the
+ * first command to mention that unit). Cards are referenced by their cardname, so that
+ * all copies of the same card share one definition.
+ *
+ * Referenced unit = { id, animation }
+ * Referenced card = { id, cardname, manacost }
+ *
+ * One of these is needed for every websocket connection, as a new connection starts
+ * with a front-end that has not seen anything.
+ *
+ */
+public class VisualReferences {
+
+	private Set<Integer> units = new HashSet<Integer>(); // ids of units that the front-end has a definition for
+	private Set<String> cards = new HashSet<String>(); // names of cards that the front-end has a definition for
+
+	/**
+	 * Returns the command to actually send, which is either the command itself or a copy
+	 * where the unit/card has been replaced by a reference.
+	 * @param command
+	 * @return
+	 */
+	public JsonNode compact(JsonNode command) {
+		JsonNode messageType = command.get("messagetype");
+		if (messageType==null) return command;
+
+		switch (messageType.asText()) {
+		case "drawUnit":
+			register(command.get("unit"));
+			return command;
+		case "moveUnitToTile":
+		case "playUnitAnimation":
+		case "setUnitAttack":
+		case "setUnitHealth":
+			return referenceUnit(command);
+		case "deleteUnit":
+			JsonNode deleted = referenceUnit(command);
+			units.remove(command.get("unit").get("id").asInt());
+			return deleted;
+		case "drawCard":
+			return referenceCard(command);
+		default:
+			return command;
+		}
+	}
+
+	/**
+	 * Forgets everything, e.g. because the front-end has been reloaded
+	 */
+	public void clear() {
+		units.clear();
+		cards.clear();
+	}
+
+	private boolean register(JsonNode unit) {
+		return unit!=null && units.add(unit.get("id").asInt());
+	}
+
+	private JsonNode referenceUnit(JsonNode command) {
+		JsonNode unit = command.get("unit");
+		if (unit==null || register(unit)) return command; // first time we have seen this unit, so send it in full
+
+		ObjectNode reference = Json.newObject();
+		reference.set("id", unit.get("id"));
+		reference.set("animation", unit.get("animation"));
+		return replace(command, "unit", reference);
+	}
+
+	private JsonNode referenceCard(JsonNode command) {
+		JsonNode card = command.get("card");
+		if (card==null || cards.add(card.get("cardname").asText())) return command;
+
+		ObjectNode reference = Json.newObject();
+		reference.set("id", card.get("id"));
+		reference.set("cardname", card.get("cardname"));
+		reference.set("manacost", card.get("manacost"));
+		return replace(command, "card", reference);
+	}
+
+	/**
+	 * Copies the top level of the command, so that the original is left untouched
+	 */
+	private JsonNode replace(JsonNode command, String field, JsonNode value) {
+		ObjectNode copy = Json.newObject();
+		copy.setAll((ObjectNode)command);
+		copy.set(field, value);
+		return copy;
+	}
+
+}
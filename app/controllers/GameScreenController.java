@@ -1,12 +1,17 @@
 package controllers;
 
+import java.util.Optional;
+
 import javax.inject.Inject;
+import javax.inject.Named;
 
-import actors.GameActor;
+import actors.GameConnection;
+import actors.InboundMessage;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
 import play.data.Form;
 import play.data.FormFactory;
 import play.libs.streams.ActorFlow;
@@ -25,24 +30,35 @@ public class GameScreenController extends Controller {
 
 	private final ActorSystem actorSystem;
 	private final Materializer materializer;
+	private final ActorRef registry; // owns all of the games, see GameRegistry
 	Form<User> userForm = null;
 	
 	
 	@Inject
-	public GameScreenController(FormFactory formFactory, ActorSystem actorSystem, Materializer materializer) {
+	public GameScreenController(FormFactory formFactory, ActorSystem actorSystem, Materializer materializer, @Named("game-registry") ActorRef registry) {
 		this.actorSystem = actorSystem;
 		this.materializer = materializer;
+		this.registry = registry;
 		userForm = formFactory.form(User.class);
 	}
 
 	/**
-	 * This responds to the request for creation of the Websocket 
+	 * This responds to the request for creation of the Websocket. Messages from the front-end
+	 * are decoded into events as they arrive, and stamped with the time they arrived so that
+	 * the GameActor can tell how long they waited. Commands are sent back as text.
+	 * 
+	 * A front-end that is reconnecting to its game gives the game's session token as the
+	 * session query parameter.
 	 * @return
 	 */
 	public WebSocket socket() {
 
-		return WebSocket.Json.accept(
-				request -> ActorFlow.actorRef(this::createGameActor, actorSystem, materializer));
+		return WebSocket.Text.accept(
+				request -> Flow.of(String.class)
+					.map(text -> Optional.ofNullable(InboundMessage.decode(text, System.nanoTime())))
+					.filter(Optional::isPresent)
+					.map(Optional::get)
+					.via(ActorFlow.<InboundMessage,String>actorRef(out -> createConnection(out, request.queryString("session").orElse(null)), actorSystem, materializer)));
 	}
 
 	/**
@@ -54,7 +70,14 @@ public class GameScreenController extends Controller {
 		return ok(views.html.gamescreen.render(request, null));
 	}
 	
-	public Props createGameActor(ActorRef out) {
-		return Props.create(GameActor.class, out); // calls the constructor for Game Actor
+	/**
+	 * Creates the actor for a new websocket connection, which asks the GameRegistry for a
+	 * game (see GameConnection)
+	 * @param out
+	 * @param session the session token of the game to reconnect to, or null
+	 * @return
+	 */
+	public Props createConnection(ActorRef out, String session) {
+		return GameConnection.props(out, registry, session);
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
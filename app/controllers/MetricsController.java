@@ -0,0 +1,55 @@
+package controllers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import actors.GameRegistry;
+import akka.actor.ActorRef;
+import akka.pattern.Patterns;
+import metrics.MemoryReport;
+import metrics.PrometheusReport;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+/**
+ * Serves the server's metrics at /metrics in the Prometheus text format, see
+ * PrometheusReport. There is one of these per server, as the report remembers when it
+ * was last asked for (to work out the allocation rate).
+ *
+ * How much memory the games are using is served as JSON at /metrics/memory, see
+ * MemoryReport.
+ *
+ */
+@Singleton
+public class MetricsController extends Controller {
+
+	private final PrometheusReport report = new PrometheusReport();
+	private final ActorRef registry; // owns all of the games, see GameRegistry
+
+	@Inject
+	public MetricsController(@Named("game-registry") ActorRef registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * This responds to a request for /metrics
+	 * @return
+	 */
+	public Result metrics() {
+		return ok(report.write()).as("text/plain; version=0.0.4; charset=utf-8");
+	}
+
+	/**
+	 * This responds to a request for /metrics/memory
+	 * @return
+	 */
+	public CompletionStage<Result> memory() {
+		return Patterns.ask(registry, GameRegistry.GetFootprints, Duration.ofSeconds(10))
+				.thenApply(footprints -> ok(MemoryReport.write((GameRegistry.Footprints)footprints)));
+	}
+
+}
@@ -1,7 +1,8 @@
 package demo;
 
-import akka.actor.ActorRef;
 import commands.BasicCommands;
+import commands.CommandSink;
+import structures.GameState;
 import structures.basic.Card;
 import structures.basic.Tile;
 import structures.basic.Unit;
@@ -10,7 +11,7 @@ import utils.StaticConfFiles;
 
 public class CheckMoveLogic {
 
-	public static void executeDemo(ActorRef out) {
+	public static void executeDemo(CommandSink out, GameState gameState) {
 		
 		// Draw two tiles to move between 勾勒两块砖
 		Tile tile = BasicObjectBuilders.loadTile(3, 2);
@@ -24,35 +25,37 @@ public class CheckMoveLogic {
 		BasicCommands.drawUnit(out, unit, tile);
 		
 		// Move unit, default, horizontal then vertical 移动unit横向然后纵向
-		BasicCommands.moveUnitToTile(out, unit, tile2);
-		unit.setPositionByTile(tile2); 
-		
-		try {Thread.sleep(4000);} catch (InterruptedException e) {e.printStackTrace();}
+		gameState.timeline.run(() -> {
+			BasicCommands.moveUnitToTile(out, unit, tile2);
+			unit.setPositionByTile(tile2); 
+		}).await(() -> gameState.movement.expect(unit.getId())); // wait for the front-end to say the unit has stopped
 		
 		// Move unit, default, horizontal then vertical 移动unit
-		BasicCommands.moveUnitToTile(out, unit, tile);
-		unit.setPositionByTile(tile); 
-		
-		try {Thread.sleep(4000);} catch (InterruptedException e) {e.printStackTrace();}
+		gameState.timeline.run(() -> {
+			BasicCommands.moveUnitToTile(out, unit, tile);
+			unit.setPositionByTile(tile); 
+		}).await(() -> gameState.movement.expect(unit.getId()));
 		
 		// Move unit, alternative, vertical then horizontal  移动unit
-		BasicCommands.moveUnitToTile(out, unit, tile2, true);
-		unit.setPositionByTile(tile2); 
-		
-		try {Thread.sleep(4000);} catch (InterruptedException e) {e.printStackTrace();}
+		gameState.timeline.run(() -> {
+			BasicCommands.moveUnitToTile(out, unit, tile2, true);
+			unit.setPositionByTile(tile2); 
+		}).await(() -> gameState.movement.expect(unit.getId()));
 		
 		// Move unit, alternative, vertical then horizontal 移动unit
-		BasicCommands.moveUnitToTile(out, unit, tile, true);
-		unit.setPositionByTile(tile); 
-		
-		BasicCommands.addPlayer1Notification(out, "drawCard [1u]", 1);
-		Card hailstone_golem = BasicObjectBuilders.loadCard(StaticConfFiles.c_hailstone_golem, 0, Card.class);
-		BasicCommands.drawCard(out, hailstone_golem, 1, 0);
-		BasicCommands.drawCard(out, hailstone_golem, 2, 0);
-		BasicCommands.drawCard(out, hailstone_golem, 3, 0);
-		BasicCommands.drawCard(out, hailstone_golem, 4, 0);
-		BasicCommands.drawCard(out, hailstone_golem, 5, 0);
-		BasicCommands.drawCard(out, hailstone_golem, 6, 0);
+		gameState.timeline.run(() -> {
+			BasicCommands.moveUnitToTile(out, unit, tile, true);
+			unit.setPositionByTile(tile); 
+		
+			BasicCommands.addPlayer1Notification(out, "drawCard [1u]", 1);
+			Card hailstone_golem = BasicObjectBuilders.loadCard(StaticConfFiles.c_hailstone_golem, 0, Card.class);
+			BasicCommands.drawCard(out, hailstone_golem, 1, 0);
+			BasicCommands.drawCard(out, hailstone_golem, 2, 0);
+			BasicCommands.drawCard(out, hailstone_golem, 3, 0);
+			BasicCommands.drawCard(out, hailstone_golem, 4, 0);
+			BasicCommands.drawCard(out, hailstone_golem, 5, 0);
+			BasicCommands.drawCard(out, hailstone_golem, 6, 0);
+		});
 	}
 	
 }
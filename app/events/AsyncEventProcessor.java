@@ -0,0 +1,57 @@
+package events;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import commands.CommandSink;
+import structures.GameState;
+
+/**
+ * An event processor whose work does not have to be finished when processEvent returns.
+ * This is for events that need slow logic, e.g. an AI deciding on its turn or loading
+ * files. The slow part is handed to one of the GameExecutors, so that the GameActor
+ * (and the other games sharing its threads) are not held up, e.g.
+ *
+ *   public CompletionStage<?> processEvent(CommandSink out, GameState gameState, GameEvent event, GameExecutors executors) {
+ *       return executors.compute(() -> ai.chooseMove(snapshot))
+ *           .thenAccept(move -> BasicCommands.moveUnitToTile(out, move.unit, move.tile));
+ *   }
+ *
+ * The stages returned by GameExecutors complete on the game's own thread, so the code that
+ * follows them can safely change the GameState. The GameActor does not start on the next
+ * event for a game until the stage returned here has completed, so events are still
+ * processed one at a time and in the order that they arrived. If it has not completed
+ * within game.events.processing-timeout the game carries on without it, and the results
+ * of its GameExecutors work are dropped (see GameExecutors.abandon).
+ *
+ */
+public interface AsyncEventProcessor {
+
+	/**
+	 * A stage that has already completed, for processors that finished straight away
+	 */
+	public static final CompletionStage<Void> DONE = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Processes an event, see EventProcessor.processEvent
+	 * @param out
+	 * @param gameState
+	 * @param event
+	 * @param executors where slow work should be run
+	 * @return a stage that completes when the event has been fully processed
+	 */
+	public CompletionStage<?> processEvent(CommandSink out, GameState gameState, GameEvent event, GameExecutors executors);
+
+	/**
+	 * Wraps a normal EventProcessor, which does all of its work before returning
+	 * @param processor
+	 * @return
+	 */
+	public static AsyncEventProcessor of(EventProcessor processor) {
+		return (out, gameState, event, executors) -> {
+			processor.processEvent(out, gameState, event);
+			return DONE;
+		};
+	}
+
+}
@@ -1,9 +1,7 @@
 package events;
 
 
-import com.fasterxml.jackson.databind.JsonNode;
-
-import akka.actor.ActorRef;
+import commands.CommandSink;
 import structures.GameState;
 
 /**
@@ -21,9 +19,9 @@ import structures.GameState;
 public class CardClicked implements EventProcessor{
 
 	@Override
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event) {
 		
-		int handPosition = message.get("position").asInt();
+		int handPosition = event.getPosition();
 		
 		
 	}
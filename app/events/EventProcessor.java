@@ -2,12 +2,13 @@ package events;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
-import akka.actor.ActorRef;
+import commands.CommandSink;
 import structures.GameState;
 
 /**
  * A generic event processor interface, implemented by all classes that process events
- * sent from the user interface. 
+ * sent from the user interface. An event processor does all of its work before
+ * processEvent returns, processors with slow work should use AsyncEventProcessor.
  * @author Dr. Richard McCreadie
  *
  */
@@ -15,13 +16,22 @@ public interface EventProcessor {
 
 	/**
 	 * The processEvent method takes as input the contents of the event in the form of a
-	 * Jackson JsonNode object, which contains a set of key-value pairs (the information
-     * about the event). It also takes in a copy of an ActorRef object, which can be used
+	 * GameEvent, which holds the information about the event (e.g. which tile was clicked).
+     * It also takes in the game's CommandSink, which can be used
      * to send commands back to the front-end, and a reference to the GameState class,
      * which as the name suggests can be used to hold game state information.
-	 * @param message
+	 * @param event
 	 * @return
 	 */
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message);
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event);
+	
+	/**
+	 * Processes an event that is held in a Jackson JsonNode object, which contains a set of
+	 * key-value pairs (the information about the event), e.g. one built by a test.
+	 * @param message
+	 */
+	public default void processEvent(CommandSink out, GameState gameState, JsonNode message) {
+		processEvent(out, gameState, GameEventDecoder.decode(message));
+	}
 	
 }
@@ -0,0 +1,39 @@
+package events;
+
+/**
+ * The types of event that the front-end sends to the GameActor. The names match the
+ * messagetype of each event.
+ *
+ */
+public enum EventType {
+
+	initalize,
+	heartbeat,
+	unitMoving,
+	unitstopped,
+	tileclicked,
+	cardclicked,
+	endturnclicked,
+	otherclicked;
+
+	/**
+	 * Looks up the type of an event from its messagetype
+	 * @param messageType
+	 * @return the type, or null if it is not an event we know about
+	 */
+	public static EventType fromMessageType(String messageType) {
+		if (messageType==null) return null;
+		switch (messageType) {
+		case "initalize": return initalize;
+		case "heartbeat": return heartbeat;
+		case "unitMoving": return unitMoving;
+		case "unitstopped": return unitstopped;
+		case "tileclicked": return tileclicked;
+		case "cardclicked": return cardclicked;
+		case "endturnclicked": return endturnclicked;
+		case "otherclicked": return otherclicked;
+		default: return null;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package events;
+
+/**
+ * An event sent by the front-end, decoded from the websocket message by GameEventDecoder.
+ * Only the fields that are used by the type of event are set, the rest are left at -1.
+ *
+ *  - tileclicked: tilex, tiley
+ *  - cardclicked: position
+ *  - unitMoving: id
+ *  - unitstopped: id, tilex, tiley
+ *
+ */
+public class GameEvent {
+
+	private final EventType type; // null if the messagetype was not recognised
+	private final String messageType;
+	private final int tilex;
+	private final int tiley;
+	private final int position;
+	private final int id;
+
+	public GameEvent(EventType type, String messageType, int tilex, int tiley, int position, int id) {
+		this.type = type;
+		this.messageType = messageType;
+		this.tilex = tilex;
+		this.tiley = tiley;
+		this.position = position;
+		this.id = id;
+	}
+
+	public EventType getType() {
+		return type;
+	}
+
+	public String getMessageType() {
+		return messageType;
+	}
+
+	public int getTilex() {
+		return tilex;
+	}
+
+	public int getTiley() {
+		return tiley;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "GameEvent [type="+messageType+", tilex="+tilex+", tiley="+tiley+", position="+position+", id="+id+"]";
+	}
+
+}
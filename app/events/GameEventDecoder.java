@@ -0,0 +1,92 @@
+package events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Turns the websocket messages sent by the front-end into GameEvents. The message text is
+ * read with a streaming parser, picking out only the fields that events use, so no
+ * JsonNode tree is built for each event.
+ *
+ * Messages that cannot be parsed are dropped. They are logged to game.events.malformed at
+ * debug level, one line each without a stack trace, so that a client sending rubbish
+ * cannot flood the log.
+ *
+ */
+public class GameEventDecoder {
+
+	private static JsonFactory factory = new JsonFactory();
+	private static ObjectMapper mapper = new ObjectMapper();
+	private static final Logger logger = LoggerFactory.getLogger("game.events.malformed");
+
+	/**
+	 * Decodes the text of a websocket message
+	 * @param text
+	 * @return the event, or null if the text is not a JSON object
+	 */
+	public static GameEvent decode(String text) {
+		try (JsonParser parser = factory.createParser(text)) {
+			return decode(parser);
+		} catch (Exception e) {
+			if (logger.isDebugEnabled()) logger.debug("length={} dropped malformed message: {}", text==null?0:text.length(), e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Decodes a message that has already been parsed, e.g. one built by a test
+	 * @param message
+	 * @return
+	 */
+	public static GameEvent decode(JsonNode message) {
+		try (JsonParser parser = mapper.treeAsTokens(message)) {
+			return decode(parser);
+		} catch (Exception e) {
+			if (logger.isDebugEnabled()) logger.debug("dropped malformed message: {}", e.getMessage());
+		}
+		return null;
+	}
+
+	private static GameEvent decode(JsonParser parser) throws Exception {
+		if (parser.nextToken()!=JsonToken.START_OBJECT) return null;
+
+		String messageType = null;
+		int tilex = -1;
+		int tiley = -1;
+		int position = -1;
+		int id = -1;
+
+		while (parser.nextToken()==JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+			case "messagetype":
+				messageType = parser.getValueAsString();
+				break;
+			case "tilex":
+				tilex = parser.getValueAsInt(-1);
+				break;
+			case "tiley":
+				tiley = parser.getValueAsInt(-1);
+				break;
+			case "position":
+				position = parser.getValueAsInt(-1);
+				break;
+			case "id":
+				id = parser.getValueAsInt(-1);
+				break;
+			default:
+				if (value==JsonToken.START_OBJECT || value==JsonToken.START_ARRAY) parser.skipChildren();
+			}
+		}
+
+		return new GameEvent(EventType.fromMessageType(messageType), messageType, tilex, tiley, position, id);
+	}
+
+}
@@ -0,0 +1,118 @@
+package events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.typesafe.config.Config;
+
+/**
+ * Logs the events that a game receives from the front-end. Each type of event has its own
+ * logger, named game.events.<messagetype> (e.g. game.events.tileclicked), so the level of
+ * each type can be set in logback.xml. Events that arrive very often, like heartbeat, can
+ * also be sampled so that only one in every n is logged, set in the
+ * game.logging.sample-every section of application.conf.
+ *
+ * Lines are written as key=value pairs with the id of the game, e.g.
+ *   game=12 event=tileclicked tilex=3 tiley=2
+ *
+ * Events of a type the game does not know are logged at DEBUG on game.events.unknown, as
+ * any client can send as many as it likes. Their messagetype is quoted, with newlines and
+ * other control characters escaped, so that it cannot be made to look like another line.
+ *
+ * The check for whether an event is logged is done before anything is formatted, so that
+ * events that are not logged cost next to nothing. The writing itself is done by the
+ * AsyncAppenders in logback.xml, away from the game's thread.
+ *
+ * A GameEventLog belongs to one game, and received() should only be called from that
+ * game's thread.
+ *
+ */
+public class GameEventLog {
+
+	private static final Logger[] loggers = new Logger[EventType.values().length]; // indexed by EventType.ordinal()
+	private static final Logger unknownLogger = LoggerFactory.getLogger("game.events.unknown");
+
+	static {
+		for (EventType type : EventType.values()) loggers[type.ordinal()] = LoggerFactory.getLogger("game.events."+type.name());
+	}
+
+	private final String gameId;
+	private final int[] sampleEvery = new int[EventType.values().length]; // log one in this many events, 1 logs them all
+	private final int[] seen = new int[EventType.values().length]; // events of each type since the last one was logged
+
+	public GameEventLog(String gameId, Config config) {
+		this.gameId = gameId;
+		for (EventType type : EventType.values()) {
+			String path = "game.logging.sample-every."+type.name();
+			sampleEvery[type.ordinal()] = config.hasPath(path)?Math.max(1, config.getInt(path)):1;
+		}
+	}
+
+	/**
+	 * Logs an event that the game has received, unless it is sampled out or its
+	 * logger is turned off
+	 * @param event
+	 */
+	public void received(GameEvent event) {
+		if (event.getType()==null) {
+			if (unknownLogger.isDebugEnabled()) unknownLogger.debug("game={} event={} unknown event type", gameId, quote(event.getMessageType()));
+			return;
+		}
+
+		int type = event.getType().ordinal();
+		Logger logger = loggers[type];
+		if (!logger.isInfoEnabled()) return;
+
+		if (sampleEvery[type]>1) {
+			if (++seen[type]<sampleEvery[type]) return;
+			seen[type] = 0;
+		}
+
+		switch (event.getType()) {
+		case tileclicked:
+			logger.info("game={} event={} tilex={} tiley={}", gameId, event.getMessageType(), event.getTilex(), event.getTiley());
+			break;
+		case cardclicked:
+			logger.info("game={} event={} position={}", gameId, event.getMessageType(), event.getPosition());
+			break;
+		case unitMoving:
+			logger.info("game={} event={} id={}", gameId, event.getMessageType(), event.getId());
+			break;
+		case unitstopped:
+			logger.info("game={} event={} id={} tilex={} tiley={}", gameId, event.getMessageType(), event.getId(), event.getTilex(), event.getTiley());
+			break;
+		default:
+			if (sampleEvery[type]>1) logger.info("game={} event={} sampled=1/{}", gameId, event.getMessageType(), sampleEvery[type]);
+			else logger.info("game={} event={}", gameId, event.getMessageType());
+		}
+	}
+
+	/**
+	 * Logs a problem with an event that the game could not process
+	 * @param event
+	 * @param error
+	 */
+	public void failed(GameEvent event, Throwable error) {
+		if (event.getType()==null) unknownLogger.error("game={} event={} processing failed", gameId, quote(event.getMessageType()), error);
+		else loggers[event.getType().ordinal()].error("game={} event={} processing failed", gameId, event.getMessageType(), error);
+	}
+
+	/**
+	 * A messagetype sent by the client, quoted and cut short, with anything that is not
+	 * printable escaped
+	 */
+	private static String quote(String messageType) {
+		if (messageType==null) return "null";
+		int length = Math.min(messageType.length(), 64);
+		StringBuilder quoted = new StringBuilder(length+8).append('"');
+		for (int i = 0; i<length; i++) {
+			char c = messageType.charAt(i);
+			if (c=='"' || c=='\\') quoted.append('\\').append(c);
+			else if (Character.isISOControl(c) || Character.getType(c)==Character.LINE_SEPARATOR || Character.getType(c)==Character.PARAGRAPH_SEPARATOR) quoted.append(String.format("\\u%04x", (int)c));
+			else quoted.append(c);
+		}
+		if (messageType.length()>length) quoted.append("...");
+		return quoted.append('"').toString();
+	}
+
+}
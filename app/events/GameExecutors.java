@@ -0,0 +1,79 @@
+package events;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import commands.Timeline;
+
+/**
+ * Gives AsyncEventProcessors somewhere to run slow work without holding up the game's own
+ * thread. There are two executors, set up in the game.dispatchers section of
+ * application.conf:
+ *  - compute is for CPU heavy work, e.g. an AI searching for its best move
+ *  - blocking is for work that waits, e.g. reading files with BasicObjectBuilders
+ *
+ * The work must not change the GameState, as it runs at the same time as the game. Its
+ * result is handed back on the game's thread (using the same Scheduler as the Timeline),
+ * so anything chained on to the returned stage can use the GameState as normal.
+ *
+ * When the GameActor gives up on an event processor (see game.events.processing-timeout)
+ * it calls abandon(). The results of work started before then are never handed back, so
+ * nothing chained on to them runs, and the abandoned processor cannot change the
+ * GameState or send commands while later events are being processed.
+ *
+ */
+public class GameExecutors {
+
+	private final Executor compute;
+	private final Executor blocking;
+	private final Timeline.Scheduler game; // runs tasks on the game's thread
+	private int generation = 0; // goes up each time work is abandoned, only used on the game's thread
+
+	public GameExecutors(Executor compute, Executor blocking, Timeline.Scheduler game) {
+		this.compute = compute;
+		this.blocking = blocking;
+		this.game = game;
+	}
+
+	/**
+	 * Runs CPU heavy work away from the game's thread
+	 * @param work
+	 * @return a stage that completes with the result, on the game's thread
+	 */
+	public <T> CompletionStage<T> compute(Supplier<T> work) {
+		return run(work, compute);
+	}
+
+	/**
+	 * Runs work that blocks (e.g. file or network access) away from the game's thread
+	 * @param work
+	 * @return a stage that completes with the result, on the game's thread
+	 */
+	public <T> CompletionStage<T> blocking(Supplier<T> work) {
+		return run(work, blocking);
+	}
+
+	/**
+	 * Stops the results of all work started so far from being handed back. This must be
+	 * called on the game's thread.
+	 */
+	public void abandon() {
+		generation++;
+	}
+
+	private <T> CompletionStage<T> run(Supplier<T> work, Executor executor) {
+		int startedIn = generation;
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		CompletableFuture.supplyAsync(work, executor).whenComplete((value, error) ->
+			game.schedule(Duration.ZERO, () -> {
+				if (startedIn!=generation) return; // abandoned, so the stage never completes
+				if (error!=null) result.completeExceptionally(error);
+				else result.complete(value);
+			}));
+		return result;
+	}
+
+}
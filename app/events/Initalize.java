@@ -1,11 +1,12 @@
 package events;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
-import akka.actor.ActorRef;
+import commands.BasicCommands;
+import commands.CommandSink;
 import demo.CheckMoveLogic;
 import demo.CommandDemo;
 import structures.GameState;
+import utils.BasicObjectBuilders;
+import utils.BoardGeometry;
 
 /**
  * Indicates that both the core game loop in the browser is starting, meaning
@@ -21,16 +22,26 @@ import structures.GameState;
 public class Initalize implements EventProcessor{
 
 	@Override
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event) {
 		// hello this is a change
 		
+		if (gameState.gameInitalised) {
+			// the front-end has reconnected to a game that is already running, so bring it up to date
+			BasicCommands.syncState(out);
+			return;
+		}
+		
 		gameState.gameInitalised = true;
 		
 		gameState.something = true;
 		
+		// Draw the empty board in one go
+		BasicCommands.drawBoard(out, BasicObjectBuilders.loadGrid(), BoardGeometry.getTile(0, 0), 0);
+		gameState.highlights.reset(0);
+		
 		// User 1 makes a change
-		//CommandDemo.executeDemo(out); // this executes the command demo, comment out this when implementing your solution
-		//CheckMoveLogic.executeDemo(out);
+		//CommandDemo.executeDemo(out, gameState); // this executes the command demo, comment out this when implementing your solution
+		//CheckMoveLogic.executeDemo(out, gameState);
 	}
 
 }
@@ -1,8 +1,6 @@
 package events;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
-import akka.actor.ActorRef;
+import commands.CommandSink;
 import structures.GameState;
 
 /**
@@ -19,7 +17,7 @@ import structures.GameState;
 public class OtherClicked implements EventProcessor{
 
 	@Override
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event) {
 		
 		
 	}
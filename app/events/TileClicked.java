@@ -1,9 +1,7 @@
 package events;
 
 
-import com.fasterxml.jackson.databind.JsonNode;
-
-import akka.actor.ActorRef;
+import commands.CommandSink;
 import structures.GameState;
 
 /**
@@ -27,13 +25,14 @@ import structures.GameState;
 public class TileClicked implements EventProcessor{
 
 	@Override
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event) {
 
-		int tilex = message.get("tilex").asInt();
-		int tiley = message.get("tiley").asInt();
+		int tilex = event.getTilex();
+		int tiley = event.getTiley();
 		
 		if (gameState.something == true) {
 			// do some logic
+			// e.g. gameState.highlights.highlight(out, tiles, 1) to show the tiles a unit can move to
 		}
 		
 	}
@@ -1,8 +1,6 @@
 package events;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
-import akka.actor.ActorRef;
+import commands.CommandSink;
 import structures.GameState;
 
 /**
@@ -20,9 +18,11 @@ import structures.GameState;
 public class UnitMoving implements EventProcessor{
 
 	@Override
-	public void processEvent(ActorRef out, GameState gameState, JsonNode message) {
+	public void processEvent(CommandSink out, GameState gameState, GameEvent event) {
+		
+		int unitid = event.getId();
 		
-		int unitid = message.get("id").asInt();
+		if (gameState.movement!=null) gameState.movement.started(unitid);
 		
 	}
 
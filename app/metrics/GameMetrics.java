@@ -0,0 +1,158 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import commands.CountingSink;
+import events.EventType;
+
+/**
+ * The measurements that are shared by every game running on this server, used to find
+ * out where time is spent and to check that events are handled quickly enough:
+ *  - for each type of event, how long it waited before the GameActor started on it
+ *    (from when it arrived on the websocket) and how long it took to process
+ *  - the number of commands of each type sent through BasicCommands
+ *  - the number of games running, and the websocket frames and bytes sent to them
+ *  - how many games have been passivated to disk and loaded back in
+ *  - how many messages are waiting in the GameActors' mailboxes, and how long they wait
+ *    (see InstrumentedMailbox)
+ *
+ * Everything here can be recorded from any thread without locking. It is reported at
+ * /metrics, see PrometheusReport.
+ *
+ */
+public class GameMetrics {
+
+	private static final LatencyHistogram[] waitTimes = new LatencyHistogram[EventType.values().length]; // indexed by EventType.ordinal()
+	private static final LatencyHistogram[] processingTimes = new LatencyHistogram[EventType.values().length];
+
+	/**
+	 * Counts every command issued through BasicCommands, by messagetype
+	 */
+	public static final CountingSink commands = new CountingSink();
+
+	/**
+	 * The number of GameActors that are running
+	 */
+	public static final AtomicInteger activeGames = new AtomicInteger();
+
+	/**
+	 * The number of websocket connections attached to games, kept by the GameRegistry
+	 */
+	public static final AtomicInteger connections = new AtomicInteger();
+
+	/**
+	 * The number of games saved to disk and stopped because nobody was playing them, and
+	 * the number loaded back in (see GameStore)
+	 */
+	public static final LongAdder gamesPassivated = new LongAdder();
+	public static final LongAdder gamesRestored = new LongAdder();
+
+	/**
+	 * The number of events waiting for an earlier event of the same game to finish
+	 */
+	public static final AtomicInteger waitingEvents = new AtomicInteger();
+
+	/**
+	 * The number of messages waiting in all of the GameActors' mailboxes
+	 */
+	public static final LongAdder mailboxDepth = new LongAdder();
+
+	/**
+	 * The most messages that have been waiting in any one GameActor's mailbox
+	 */
+	public static final AtomicInteger mailboxMaxDepth = new AtomicInteger();
+
+	/**
+	 * How long messages wait in the GameActors' mailboxes
+	 */
+	public static final LatencyHistogram mailboxTimeInQueue = new LatencyHistogram();
+
+	/**
+	 * The number of heartbeats dropped from the GameActors' mailboxes because a newer one
+	 * arrived (see GameEventMailbox)
+	 */
+	public static final LongAdder heartbeatsCoalesced = new LongAdder();
+
+	private static final LongAdder framesSent = new LongAdder();
+	private static final LongAdder bytesSent = new LongAdder();
+
+	static {
+		for (int i = 0; i<waitTimes.length; i++) {
+			waitTimes[i] = new LatencyHistogram();
+			processingTimes[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Records how long an event took
+	 * @param type
+	 * @param receivedAt System.nanoTime() when the event arrived on the websocket
+	 * @param startedAt System.nanoTime() when the GameActor started to process it
+	 * @param finishedAt System.nanoTime() when it had been processed
+	 */
+	public static void eventProcessed(EventType type, long receivedAt, long startedAt, long finishedAt) {
+		if (type==null) return;
+		waitTimes[type.ordinal()].record(startedAt-receivedAt);
+		processingTimes[type.ordinal()].record(finishedAt-startedAt);
+	}
+
+	/**
+	 * Records a websocket frame sent to the front-end
+	 * @param text
+	 */
+	public static void frameSent(String text) {
+		framesSent.increment();
+		bytesSent.add(utf8Length(text)); // card names and notifications are not always ASCII
+	}
+
+	/**
+	 * The number of bytes a String takes up in UTF-8, worked out without encoding it
+	 * @param text
+	 * @return
+	 */
+	public static long utf8Length(String text) {
+		long length = 0;
+		for (int i = 0; i<text.length(); i++) {
+			char c = text.charAt(i);
+			if (c<0x80) {
+				length += 1;
+			} else if (c<0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i+1<text.length() && Character.isLowSurrogate(text.charAt(i+1))) {
+				length += 4; // a pair of chars for one character outside the Basic Multilingual Plane
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	public static long getFramesSent() {
+		return framesSent.sum();
+	}
+
+	public static long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	/**
+	 * How long events of a type waited before they were processed
+	 * @param type
+	 * @return
+	 */
+	public static LatencyHistogram getWaitTime(EventType type) {
+		return waitTimes[type.ordinal()];
+	}
+
+	/**
+	 * How long events of a type took to process
+	 * @param type
+	 * @return
+	 */
+	public static LatencyHistogram getProcessingTime(EventType type) {
+		return processingTimes[type.ordinal()];
+	}
+
+}
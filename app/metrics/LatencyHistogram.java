@@ -0,0 +1,109 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long something took, e.g. processing an event. Latencies are counted in
+ * buckets that double in size: bucket 0 holds latencies under 1 microsecond, bucket 1
+ * those under 2 microseconds, bucket 2 those under 4 microseconds, and so on, with the
+ * last bucket holding everything that is longer (over a minute).
+ *
+ * Recording is lock-free and cheap (a couple of LongAdder increments), so one histogram
+ * can be shared by every game on a server. Reading a histogram while latencies are being
+ * recorded gives an approximate snapshot.
+ *
+ */
+public class LatencyHistogram {
+
+	public static final int BUCKETS = 28;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+	private final LongAdder sumNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public LatencyHistogram() {
+		for (int i = 0; i<BUCKETS; i++) counts[i] = new LongAdder();
+	}
+
+	/**
+	 * Records a latency
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		if (nanos<0) nanos = 0;
+		int bucket = Math.min(BUCKETS-1, 64-Long.numberOfLeadingZeros(nanos/1000));
+		counts[bucket].increment();
+		sumNanos.add(nanos);
+
+		long max = maxNanos.get();
+		while (nanos>max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+	}
+
+	/**
+	 * The upper limit of a bucket, latencies in the bucket are less than this
+	 * @param bucket
+	 * @return microseconds, or Long.MAX_VALUE for the last bucket
+	 */
+	public static long getBucketLimitMicros(int bucket) {
+		if (bucket>=BUCKETS-1) return Long.MAX_VALUE;
+		return 1L<<bucket;
+	}
+
+	/**
+	 * The number of latencies recorded in a bucket
+	 * @param bucket
+	 * @return
+	 */
+	public long getBucketCount(int bucket) {
+		return counts[bucket].sum();
+	}
+
+	/**
+	 * @return the number of latencies recorded
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : counts) count += bucket.sum();
+		return count;
+	}
+
+	/**
+	 * @return all of the recorded latencies added together, in nanoseconds
+	 */
+	public long getSumNanos() {
+		return sumNanos.sum();
+	}
+
+	/**
+	 * @return the longest latency recorded, in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * An upper bound for a percentile of the recorded latencies, e.g. getPercentileMicros(0.99)
+	 * @param percentile between 0 and 1
+	 * @return microseconds, the limit of the bucket that the percentile falls in, or 0 if
+	 * nothing has been recorded
+	 */
+	public long getPercentileMicros(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i<BUCKETS; i++) {
+			snapshot[i] = counts[i].sum();
+			count += snapshot[i];
+		}
+		if (count==0) return 0;
+
+		long target = Math.max(1, (long)Math.ceil(percentile*count));
+		long seen = 0;
+		for (int i = 0; i<BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen>=target) return i==BUCKETS-1?getMaxNanos()/1000:getBucketLimitMicros(i);
+		}
+		return getMaxNanos()/1000;
+	}
+
+}
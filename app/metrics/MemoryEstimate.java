@@ -0,0 +1,158 @@
+package metrics;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Works out roughly how much heap a group of objects takes up, for the MemoryReport. The
+ * sizes are for a 64-bit JVM with compressed references (12 byte object headers, 4 byte
+ * references, everything rounded up to 8 bytes), so they are estimates rather than exact.
+ *
+ * An object is only counted the first time it is added, so objects that are shared are
+ * counted once. Adding the templates first and then a copy of one gives how much the copy
+ * adds on its own.
+ *
+ * The estimate follows the fields of the game's own classes, arrays, Strings, collections
+ * and JsonNodes. Anything else (e.g. an ActorRef or a lambda) is counted as a small object
+ * and not followed, so that it does not count half of the server.
+ *
+ */
+public class MemoryEstimate {
+
+	private static final int header = 12;
+	private static final int arrayHeader = 16;
+	private static final int reference = 4;
+
+	private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object,Boolean>());
+	private long bytes = 0;
+
+	/**
+	 * Adds an object, and everything it refers to, to the estimate
+	 * @param object
+	 * @return this
+	 */
+	public MemoryEstimate add(Object object) {
+		if (object==null || object instanceof Enum || object instanceof Class || !seen.add(object)) return this;
+
+		Class<?> type = object.getClass();
+		if (object instanceof String) {
+			bytes += align(header+reference+8)+align(arrayHeader+((String)object).length()); // mostly Latin-1 text
+		} else if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+			bytes += 16;
+		} else if (type.isArray()) {
+			addArray(object, type.getComponentType());
+		} else if (object instanceof JsonNode) {
+			addJson((JsonNode)object);
+		} else if (object instanceof Map) {
+			Map<?,?> map = (Map<?,?>)object;
+			bytes += align(header+(6*reference))+align(arrayHeader+(tableSize(map.size())*reference))+(map.size()*32L);
+			for (Map.Entry<?,?> entry : map.entrySet()) {
+				add(entry.getKey());
+				add(entry.getValue());
+			}
+		} else if (object instanceof Collection) {
+			Collection<?> collection = (Collection<?>)object;
+			bytes += align(header+(3*reference))+align(arrayHeader+(collection.size()*reference));
+			for (Iterator<?> elements = collection.iterator(); elements.hasNext(); ) add(elements.next());
+		} else if (isFollowed(type)) {
+			addFields(object, type);
+		} else {
+			bytes += 16;
+		}
+		return this;
+	}
+
+	/**
+	 * @return the bytes added so far
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	private void addArray(Object array, Class<?> component) {
+		int length = Array.getLength(array);
+		if (component.isPrimitive()) {
+			bytes += align(arrayHeader+((long)length*primitiveSize(component)));
+		} else {
+			bytes += align(arrayHeader+((long)length*reference));
+			for (int i = 0; i<length; i++) add(Array.get(array, i));
+		}
+	}
+
+	private void addJson(JsonNode node) {
+		if (node.isObject()) {
+			bytes += align(header+reference)+align(header+(6*reference))+align(arrayHeader+(tableSize(node.size())*reference))+(node.size()*40L);
+			for (Iterator<Map.Entry<String,JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+				Map.Entry<String,JsonNode> field = fields.next();
+				add(field.getKey());
+				add(field.getValue());
+			}
+		} else if (node.isArray()) {
+			bytes += align(header+reference)+align(header+(2*reference))+align(arrayHeader+(node.size()*reference));
+			for (JsonNode element : node) add(element);
+		} else if (node.isTextual()) {
+			bytes += align(header+reference);
+			add(node.textValue());
+		} else {
+			bytes += 16;
+		}
+	}
+
+	private void addFields(Object object, Class<?> type) {
+		long size = header;
+		for (Class<?> c = type; c!=null && c!=Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) continue;
+				Class<?> fieldType = field.getType();
+				if (fieldType.isPrimitive()) {
+					size += primitiveSize(fieldType);
+					continue;
+				}
+				size += reference;
+				try {
+					field.setAccessible(true);
+					add(field.get(object));
+				} catch (ReflectiveOperationException | RuntimeException e) {
+					// not something that can be looked into, so only the reference is counted
+				}
+			}
+		}
+		bytes += align(size);
+	}
+
+	/**
+	 * Only the game's own classes are looked into
+	 */
+	private static boolean isFollowed(Class<?> type) {
+		if (type.isSynthetic() || type.getName().contains("$$Lambda")) return false;
+		Package p = type.getPackage();
+		if (p==null) return false;
+		String name = p.getName();
+		return name.equals("structures") || name.startsWith("structures.") || name.equals("commands") || name.equals("events") || name.equals("utils");
+	}
+
+	private static int primitiveSize(Class<?> type) {
+		if (type==long.class || type==double.class) return 8;
+		if (type==int.class || type==float.class) return 4;
+		if (type==short.class || type==char.class) return 2;
+		return 1;
+	}
+
+	private static long tableSize(int entries) {
+		return Integer.highestOneBit(Math.max(1, (entries*4)/3)*2);
+	}
+
+	private static long align(long size) {
+		return (size+7) & ~7L;
+	}
+
+}
@@ -0,0 +1,83 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import actors.GameActor;
+import actors.GameRegistry;
+import structures.basic.Card;
+import structures.basic.Unit;
+import utils.GameTemplates;
+import utils.StaticConfFiles;
+
+/**
+ * Writes a report of roughly how much memory the games on this server are using, served
+ * as JSON from /metrics/memory. It shows what is shared by every game and what each game
+ * adds on top:
+ *
+ * {
+ *   templates = { count = 60, bytes = 400000 }  the GameTemplates, shared by every game
+ *   unitCopyBytes = 72                           what one more unit adds to a game
+ *   cardCopyBytes = 80                           what one more card adds to a game
+ *   games = { count = 2, totalBytes = 30000, averageBytes = 15000, maxBytes = 20000 }
+ *   perGame = [ { gameId = "1", stateBytes = 400, screenBytes = 19600, waitingEvents = 0, totalBytes = 20000 }, ... ]
+ * }
+ *
+ * perGame is sorted with the biggest game first. The sizes are estimates, see
+ * MemoryEstimate.
+ *
+ */
+public class MemoryReport {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Writes the report
+	 * @param footprints from the GameRegistry
+	 * @return
+	 */
+	public static ObjectNode write(GameRegistry.Footprints footprints) {
+		ObjectNode report = mapper.createObjectNode();
+
+		List<Object> templates = GameTemplates.templates();
+		MemoryEstimate shared = new MemoryEstimate();
+		for (Object template : templates) shared.add(template);
+		ObjectNode sharedReport = report.putObject("templates");
+		sharedReport.put("count", templates.size());
+		sharedReport.put("bytes", shared.getBytes());
+
+		// a copy only adds what it does not share with its template
+		long before = shared.getBytes();
+		shared.add(GameTemplates.newUnit(StaticConfFiles.u_fire_spitter, 1, Unit.class));
+		report.put("unitCopyBytes", shared.getBytes()-before);
+		before = shared.getBytes();
+		shared.add(GameTemplates.newCard(StaticConfFiles.c_truestrike, 1, Card.class));
+		report.put("cardCopyBytes", shared.getBytes()-before);
+
+		List<GameActor.Footprint> games = new ArrayList<GameActor.Footprint>(footprints.games);
+		games.sort((a, b) -> Long.compare(b.getTotalBytes(), a.getTotalBytes()));
+		long total = 0;
+		for (GameActor.Footprint game : games) total += game.getTotalBytes();
+		ObjectNode gamesReport = report.putObject("games");
+		gamesReport.put("count", games.size());
+		gamesReport.put("totalBytes", total);
+		gamesReport.put("averageBytes", games.isEmpty()?0:total/games.size());
+		gamesReport.put("maxBytes", games.isEmpty()?0:games.get(0).getTotalBytes());
+
+		ArrayNode perGame = report.putArray("perGame");
+		for (GameActor.Footprint game : games) {
+			ObjectNode gameReport = perGame.addObject();
+			gameReport.put("gameId", game.gameId);
+			gameReport.put("stateBytes", game.stateBytes);
+			gameReport.put("screenBytes", game.screenBytes);
+			gameReport.put("waitingEvents", game.waitingEvents);
+			gameReport.put("totalBytes", game.getTotalBytes());
+		}
+		return report;
+	}
+
+}
@@ -0,0 +1,143 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+
+import events.EventType;
+
+/**
+ * Writes the GameMetrics (and a little about the JVM) in the Prometheus text format, so
+ * that they can be scraped from /metrics. The report includes:
+ *  - game_active_games, the number of GameActors running
+ *  - game_connections, the number of websocket connections attached to games
+ *  - game_passivations_total and game_restores_total, games saved to disk as nobody was
+ *    playing them, and loaded back in (see GameStore)
+ *  - game_event_wait_seconds and game_event_processing_seconds, histograms for each
+ *    type of event. Their _count is the number of events of each type received, so
+ *    rate(game_event_processing_seconds_count[1m]) gives events per second by type
+ *  - game_events_waiting, the number of events queued behind an unfinished event
+ *  - game_mailbox_depth, game_mailbox_max_depth and game_mailbox_wait_seconds, for the
+ *    GameActors' mailboxes (see InstrumentedMailbox)
+ *  - game_heartbeats_coalesced_total, heartbeats dropped as a newer one was waiting
+ *  - game_commands_sent_total, the commands of each type sent through BasicCommands
+ *  - game_websocket_frames_sent_total and game_websocket_sent_bytes_total
+ *  - jvm_allocation_rate_bytes_per_second, worked out since the last report
+ *  - jvm_heap_used_bytes
+ *
+ * Counters only ever go up, Prometheus works out the per-second rates from them.
+ *
+ */
+public class PrometheusReport {
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	private long lastReportAt = System.nanoTime();
+	private long lastAllocatedBytes = allocatedBytes();
+
+	/**
+	 * Writes the report
+	 * @return the text to send, with content type "text/plain; version=0.0.4"
+	 */
+	public synchronized String write() {
+		StringBuilder out = new StringBuilder(16*1024);
+
+		gauge(out, "game_active_games", "GameActors that are running", GameMetrics.activeGames.get());
+		gauge(out, "game_connections", "Websocket connections attached to games", GameMetrics.connections.get());
+		header(out, "game_passivations_total", "Games saved to disk and stopped as nobody was playing them", "counter");
+		out.append("game_passivations_total ").append(GameMetrics.gamesPassivated.sum()).append('\n');
+		header(out, "game_restores_total", "Passivated games loaded back in", "counter");
+		out.append("game_restores_total ").append(GameMetrics.gamesRestored.sum()).append('\n');
+
+		histograms(out, "game_event_wait_seconds", "Time from an event arriving on the websocket to the GameActor starting on it", true);
+		histograms(out, "game_event_processing_seconds", "Time taken by the GameActor to process an event", false);
+		gauge(out, "game_events_waiting", "Events waiting for an earlier event of the same game to finish", GameMetrics.waitingEvents.get());
+
+		gauge(out, "game_mailbox_depth", "Messages waiting in GameActor mailboxes", GameMetrics.mailboxDepth.sum());
+		gauge(out, "game_mailbox_max_depth", "The most messages that have been waiting in one GameActor mailbox", GameMetrics.mailboxMaxDepth.get());
+		header(out, "game_mailbox_wait_seconds", "Time messages wait in GameActor mailboxes", "histogram");
+		histogram(out, "game_mailbox_wait_seconds", "", GameMetrics.mailboxTimeInQueue);
+		header(out, "game_heartbeats_coalesced_total", "Heartbeats dropped from GameActor mailboxes as a newer one was waiting", "counter");
+		out.append("game_heartbeats_coalesced_total ").append(GameMetrics.heartbeatsCoalesced.sum()).append('\n');
+
+		header(out, "game_commands_sent_total", "Commands sent through BasicCommands", "counter");
+		for (Map.Entry<String,Long> count : new TreeMap<String,Long>(GameMetrics.commands.getCounts()).entrySet()) {
+			out.append("game_commands_sent_total{type=\"").append(count.getKey()).append("\"} ").append(count.getValue()).append('\n');
+		}
+
+		header(out, "game_websocket_frames_sent_total", "Websocket frames sent to the front-end", "counter");
+		out.append("game_websocket_frames_sent_total ").append(GameMetrics.getFramesSent()).append('\n');
+		header(out, "game_websocket_sent_bytes_total", "Bytes sent to the front-end", "counter");
+		out.append("game_websocket_sent_bytes_total ").append(GameMetrics.getBytesSent()).append('\n');
+
+		long now = System.nanoTime();
+		long allocated = allocatedBytes();
+		double seconds = (now-lastReportAt)/1e9;
+		long rate = seconds<=0?0:(long)(Math.max(0, allocated-lastAllocatedBytes)/seconds); // threads that have ended take their count with them
+		lastReportAt = now;
+		lastAllocatedBytes = allocated;
+		gauge(out, "jvm_allocation_rate_bytes_per_second", "Bytes allocated per second since the last report", rate);
+		gauge(out, "jvm_heap_used_bytes", "Heap memory in use", memory.getHeapMemoryUsage().getUsed());
+
+		return out.toString();
+	}
+
+	private static void histograms(StringBuilder out, String name, String help, boolean wait) {
+		header(out, name, help, "histogram");
+		for (EventType type : EventType.values()) {
+			LatencyHistogram histogram = wait?GameMetrics.getWaitTime(type):GameMetrics.getProcessingTime(type);
+			if (histogram.getCount()==0) continue; // leave out types that have not been seen
+			histogram(out, name, "type=\""+type.name()+"\",", histogram);
+		}
+	}
+
+	/**
+	 * Writes the lines of one histogram
+	 * @param out
+	 * @param name
+	 * @param labels any labels to add to each line, followed by a comma, e.g. type="heartbeat",
+	 * @param histogram
+	 */
+	private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+		long cumulative = 0;
+		for (int bucket = 0; bucket<LatencyHistogram.BUCKETS; bucket++) {
+			cumulative += histogram.getBucketCount(bucket);
+			long limit = LatencyHistogram.getBucketLimitMicros(bucket);
+			out.append(name).append("_bucket{").append(labels).append("le=\"")
+				.append(limit==Long.MAX_VALUE?"+Inf":Double.toString(limit/1e6)).append("\"} ").append(cumulative).append('\n');
+		}
+		String total = labels.isEmpty()?"":"{"+labels.substring(0, labels.length()-1)+"}";
+		out.append(name).append("_sum").append(total).append(' ').append(histogram.getSumNanos()/1e9).append('\n');
+		out.append(name).append("_count").append(total).append(' ').append(cumulative).append('\n');
+	}
+
+	private static void gauge(StringBuilder out, String name, String help, long value) {
+		header(out, name, help, "gauge");
+		out.append(name).append(' ').append(value).append('\n');
+	}
+
+	private static void header(StringBuilder out, String name, String help, String type) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	/**
+	 * The bytes allocated by all of the threads that are running, if the JVM can say
+	 * @return
+	 */
+	private long allocatedBytes() {
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean)threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) return 0;
+
+		long total = 0;
+		for (long allocated : allocations.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if (allocated>0) total += allocated;
+		}
+		return total;
+	}
+
+}
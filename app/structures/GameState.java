@@ -1,5 +1,8 @@
 package structures;
 
+import commands.Timeline;
+import utils.BasicObjectBuilders;
+
 /**
  * This class can be used to hold information about the on-going game.
  * Its created with the GameActor.
@@ -14,4 +17,10 @@ public class GameState {
 	
 	public boolean something = false;
 	
+	public TileHighlights highlights = new TileHighlights(BasicObjectBuilders.loadGrid()); // the mode each tile is drawn with
+	
+	public Timeline timeline; // used to sequence visual steps without blocking, set up by the GameActor
+	
+	public MovementTracker movement; // which units are moving on the front-end, set up by the GameActor
+	
 }
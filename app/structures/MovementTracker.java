@@ -0,0 +1,120 @@
+package structures;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import commands.Timeline;
+
+/**
+ * This keeps track of which units are moving on the front-end. When a unit is told to
+ * move, call expect() with its id. The front-end reports when the unit starts moving
+ * (UnitMoving) and when it stops (UnitStopped), and the stage returned by expect() is
+ * completed when the unit stops. This lets game logic carry on as soon as a move has
+ * actually finished, e.g.
+ *
+ *   gameState.timeline
+ *       .run(() -> BasicCommands.moveUnitToTile(out, unit, tile))
+ *       .await(() -> gameState.movement.expect(unit.getId()))
+ *       .run(() -> BasicCommands.playUnitAnimation(out, unit, UnitAnimationType.attack));
+ *
+ * If the front-end never reports that the unit stopped (e.g. the page was closed), the
+ * move is treated as finished after a timeout, so that the game does not get stuck.
+ *
+ */
+public class MovementTracker {
+
+	private static final Logger logger = LoggerFactory.getLogger(MovementTracker.class);
+
+	private final Timeline.Scheduler scheduler; // used for the timeouts, runs on the game's thread
+	private final Duration timeout;
+	private final Map<Integer,Movement> inFlight = new HashMap<Integer,Movement>(); // unit id -> the move it is making
+
+	public MovementTracker(Timeline.Scheduler scheduler, Duration timeout) {
+		this.scheduler = scheduler;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Records that a unit has been told to move
+	 * @param unitId
+	 * @return a stage that completes when the unit stops (or the move times out)
+	 */
+	public CompletionStage<Void> expect(int unitId) {
+		Movement movement = inFlight.get(unitId);
+		if (movement==null) {
+			Movement newMovement = new Movement();
+			inFlight.put(unitId, newMovement);
+			scheduler.schedule(timeout, () -> {
+				if (inFlight.get(unitId)==newMovement) {
+					logger.warn("unit={} did not report that it stopped within {}, carrying on", unitId, timeout);
+					finish(unitId);
+				}
+			});
+			movement = newMovement;
+		}
+		return movement.stopped;
+	}
+
+	/**
+	 * Called when the front-end says that a unit has started moving
+	 * @param unitId
+	 */
+	public void started(int unitId) {
+		expect(unitId); // moves we did not know about are tracked too
+		inFlight.get(unitId).started = true;
+	}
+
+	/**
+	 * Called when the front-end says that a unit has stopped moving
+	 * @param unitId
+	 */
+	public void stopped(int unitId) {
+		finish(unitId);
+	}
+
+	/**
+	 * @param unitId
+	 * @return true if the unit has started moving on the front-end and not yet stopped
+	 */
+	public boolean isMoving(int unitId) {
+		Movement movement = inFlight.get(unitId);
+		return movement!=null && movement.started;
+	}
+
+	/**
+	 * @param unitId
+	 * @return a stage that completes when the unit stops, which is already complete if
+	 * the unit is not moving
+	 */
+	public CompletionStage<Void> whenStopped(int unitId) {
+		Movement movement = inFlight.get(unitId);
+		if (movement==null) return CompletableFuture.completedFuture(null);
+		return movement.stopped;
+	}
+
+	/**
+	 * Runs some code once a unit has stopped (straight away if it is not moving)
+	 * @param unitId
+	 * @param continuation
+	 */
+	public void onStopped(int unitId, Runnable continuation) {
+		whenStopped(unitId).thenRun(continuation);
+	}
+
+	private void finish(int unitId) {
+		Movement movement = inFlight.remove(unitId);
+		if (movement!=null) movement.stopped.complete(null);
+	}
+
+	private static class Movement {
+		final CompletableFuture<Void> stopped = new CompletableFuture<Void>();
+		boolean started = false;
+	}
+
+}
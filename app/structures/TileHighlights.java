@@ -0,0 +1,127 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import commands.BasicCommands;
+import commands.CommandSink;
+import structures.basic.Grid;
+import structures.basic.Tile;
+
+/**
+ * This keeps track of the mode (e.g. 0 = normal, 1 = highlighted, 2 = red highlight) that
+ * each tile on the board is currently drawn with on the front-end. Rather than game logic
+ * redrawing tiles itself, it says which tiles it wants highlighted, and only the tiles whose
+ * mode has actually changed are sent to the front-end (in a single drawTiles command).
+ *
+ * e.g. to show where a unit can move, then clear it again:
+ *   gameState.highlights.highlight(out, moveTiles, 1);
+ *   gameState.highlights.clear(out);
+ *
+ */
+public class TileHighlights {
+
+	private final int[][] modes; // the mode of each tile as last sent to the front-end, [tilex][tiley]
+
+	public TileHighlights(Grid grid) {
+		this(grid.getGridxsize(), grid.getGridysize());
+	}
+
+	public TileHighlights(int xsize, int ysize) {
+		modes = new int[xsize][ysize];
+	}
+
+	/**
+	 * The mode the tile is currently drawn with
+	 * @param tilex
+	 * @param tiley
+	 * @return
+	 */
+	public int getMode(int tilex, int tiley) {
+		return modes[tilex][tiley];
+	}
+
+	/**
+	 * A copy of the mode of every tile, [tilex][tiley]
+	 * @return
+	 */
+	public int[][] getModes() {
+		int[][] copy = new int[modes.length][];
+		for (int x = 0; x<modes.length; x++) copy[x] = modes[x].clone();
+		return copy;
+	}
+
+	/**
+	 * Records the mode a tile is drawn with, without sending anything, e.g. when a game is
+	 * loaded back in (see GameStore)
+	 * @param tilex
+	 * @param tiley
+	 * @param mode
+	 */
+	public void setMode(int tilex, int tiley, int mode) {
+		modes[tilex][tiley] = mode;
+	}
+
+	/**
+	 * Changes the board so that it matches the desired modes, sending only the tiles that
+	 * are different to what is already drawn.
+	 * @param out
+	 * @param desired the mode wanted for every tile, [tilex][tiley]
+	 * @return the number of tiles that changed
+	 */
+	public int apply(CommandSink out, int[][] desired) {
+		List<Integer> changes = new ArrayList<Integer>();
+		for (int x = 0; x<modes.length; x++) {
+			for (int y = 0; y<modes[x].length; y++) {
+				if (modes[x][y]!=desired[x][y]) {
+					modes[x][y] = desired[x][y];
+					changes.add(x);
+					changes.add(y);
+					changes.add(desired[x][y]);
+				}
+			}
+		}
+
+		if (!changes.isEmpty()) {
+			int[] tileModes = new int[changes.size()];
+			for (int i = 0; i<tileModes.length; i++) tileModes[i] = changes.get(i);
+			BasicCommands.drawTiles(out, tileModes);
+		}
+		return changes.size()/3;
+	}
+
+	/**
+	 * Highlights the given tiles with a mode, and returns every other tile to normal (0)
+	 * @param out
+	 * @param tiles
+	 * @param mode
+	 * @return the number of tiles that changed
+	 */
+	public int highlight(CommandSink out, Collection<Tile> tiles, int mode) {
+		int[][] desired = new int[modes.length][modes[0].length];
+		for (Tile tile : tiles) desired[tile.getTilex()][tile.getTiley()] = mode;
+		return apply(out, desired);
+	}
+
+	/**
+	 * Returns every tile to normal (0)
+	 * @param out
+	 * @return the number of tiles that changed
+	 */
+	public int clear(CommandSink out) {
+		return apply(out, new int[modes.length][modes[0].length]);
+	}
+
+	/**
+	 * Records that the whole board has been drawn with a single mode by other means (e.g.
+	 * BasicCommands.drawBoard), without sending anything.
+	 * @param mode
+	 */
+	public void reset(int mode) {
+		for (int[] column : modes) {
+			for (int y = 0; y<column.length; y++) column[y] = mode;
+		}
+	}
+
+}
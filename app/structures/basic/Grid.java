@@ -0,0 +1,71 @@
+package structures.basic;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * This holds the layout of the game board, as loaded from grid.json. The board is
+ * gridxsize tiles wide and gridysize tiles high, with the top left tile drawn at pixel
+ * position (gridTopLeftx, gridTopLefty) and a gap of gridmargin pixels between tiles.
+ * 
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Grid {
+
+	int gridxsize;
+	int gridysize;
+	int gridmargin;
+	int gridTopLeftx;
+	int gridTopLefty;
+	
+	public Grid() {}
+
+	public Grid(int gridxsize, int gridysize, int gridmargin, int gridTopLeftx, int gridTopLefty) {
+		super();
+		this.gridxsize = gridxsize;
+		this.gridysize = gridysize;
+		this.gridmargin = gridmargin;
+		this.gridTopLeftx = gridTopLeftx;
+		this.gridTopLefty = gridTopLefty;
+	}
+
+	public int getGridxsize() {
+		return gridxsize;
+	}
+
+	public void setGridxsize(int gridxsize) {
+		this.gridxsize = gridxsize;
+	}
+
+	public int getGridysize() {
+		return gridysize;
+	}
+
+	public void setGridysize(int gridysize) {
+		this.gridysize = gridysize;
+	}
+
+	public int getGridmargin() {
+		return gridmargin;
+	}
+
+	public void setGridmargin(int gridmargin) {
+		this.gridmargin = gridmargin;
+	}
+
+	public int getGridTopLeftx() {
+		return gridTopLeftx;
+	}
+
+	public void setGridTopLeftx(int gridTopLeftx) {
+		this.gridTopLeftx = gridTopLeftx;
+	}
+
+	public int getGridTopLefty() {
+		return gridTopLefty;
+	}
+
+	public void setGridTopLefty(int gridTopLefty) {
+		this.gridTopLefty = gridTopLefty;
+	}
+	
+}
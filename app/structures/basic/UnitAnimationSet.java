@@ -82,6 +82,23 @@ public class UnitAnimationSet {
 		this.hit = hit;
 	}
 	
+	/**
+	 * Looks up the animation for one of the animation states
+	 * @param type
+	 * @return
+	 */
+	public UnitAnimation getAnimation(UnitAnimationType type) {
+		switch (type) {
+		case idle: return idle;
+		case death: return death;
+		case attack: return attack;
+		case move: return move;
+		case channel: return channel;
+		case hit: return hit;
+		default: return null;
+		}
+	}
+	
 	
 	
 	
@@ -0,0 +1,111 @@
+package utils;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import structures.basic.EffectAnimation;
+import structures.basic.Unit;
+import structures.basic.UnitAnimation;
+import structures.basic.UnitAnimationSet;
+import structures.basic.UnitAnimationType;
+
+/**
+ * This is a utility class that says how long (in milliseconds) an animation takes to
+ * play on the front-end, so that game logic can issue the next command as soon as an
+ * animation has finished (e.g. on a Timeline) rather than waiting for a fixed time.
+ *
+ * A unit animation plays the frames from frameStartEndIndices[0] to frameStartEndIndices[1]
+ * at fps frames per second, and an effect plays each of its animationTextures at fps frames
+ * per second. For looping animations (e.g. idle and move) this is the length of one loop.
+ *
+ * The durations for every unit, avatar and effect in conf/gameconfs are worked out when
+ * this class is first used, and are looked up by the configuration file, e.g.
+ *   AnimationDurations.getUnitDuration(StaticConfFiles.u_fire_spitter, UnitAnimationType.attack);
+ *
+ */
+public class AnimationDurations {
+
+	private static final Map<String,long[]> units = new ConcurrentHashMap<String,long[]>(); // config file -> duration, indexed by UnitAnimationType.ordinal()
+	private static final Map<String,Long> effects = new ConcurrentHashMap<String,Long>(); // config file -> duration
+
+	static {
+		for (String configFile : listConfFiles("conf/gameconfs/units")) getUnitDurations(configFile);
+		for (String configFile : listConfFiles("conf/gameconfs/avatars")) getUnitDurations(configFile);
+		for (String configFile : listConfFiles("conf/gameconfs/effects")) getEffectDuration(configFile);
+	}
+
+	/**
+	 * How long an animation of the unit described by a configuration file takes
+	 * @param configFile e.g. StaticConfFiles.u_fire_spitter
+	 * @param type
+	 * @return milliseconds
+	 */
+	public static long getUnitDuration(String configFile, UnitAnimationType type) {
+		return getUnitDurations(configFile)[type.ordinal()];
+	}
+
+	/**
+	 * How long an effect described by a configuration file takes
+	 * @param configFile e.g. StaticConfFiles.f1_buff
+	 * @return milliseconds
+	 */
+	public static long getEffectDuration(String configFile) {
+		return effects.computeIfAbsent(configFile, file -> getDuration(BasicObjectBuilders.loadEffect(file)));
+	}
+
+	/**
+	 * How long an animation of a unit that has already been loaded takes
+	 * @param unit
+	 * @param type
+	 * @return milliseconds
+	 */
+	public static long getDuration(Unit unit, UnitAnimationType type) {
+		return getDuration(unit.getAnimations(), type);
+	}
+
+	/**
+	 * Works out the duration of a unit animation
+	 * @param animations
+	 * @param type
+	 * @return milliseconds, or 0 if the unit does not have the animation
+	 */
+	public static long getDuration(UnitAnimationSet animations, UnitAnimationType type) {
+		if (animations==null) return 0;
+		UnitAnimation animation = animations.getAnimation(type);
+		if (animation==null || animation.getFps()<=0 || animation.getFrameStartEndIndices()==null) return 0;
+
+		int[] frames = animation.getFrameStartEndIndices();
+		int frameCount = Math.max(0, frames[1]-frames[0]+1);
+		return (frameCount*1000L)/animation.getFps();
+	}
+
+	/**
+	 * Works out the duration of an effect
+	 * @param effect
+	 * @return milliseconds, or 0 if the effect has no frames
+	 */
+	public static long getDuration(EffectAnimation effect) {
+		if (effect==null || effect.getFps()<=0 || effect.getAnimationTextures()==null) return 0;
+		return (effect.getAnimationTextures().size()*1000L)/effect.getFps();
+	}
+
+	private static long[] getUnitDurations(String configFile) {
+		return units.computeIfAbsent(configFile, file -> {
+			Unit unit = BasicObjectBuilders.loadUnit(file, 0, Unit.class);
+			long[] durations = new long[UnitAnimationType.values().length];
+			if (unit!=null) {
+				for (UnitAnimationType type : UnitAnimationType.values()) durations[type.ordinal()] = getDuration(unit, type);
+			}
+			return durations;
+		});
+	}
+
+	private static String[] listConfFiles(String directory) {
+		String[] names = new File(directory).list((dir, name) -> name.endsWith(".json"));
+		if (names==null) return new String[0];
+		for (int i = 0; i<names.length; i++) names[i] = directory+"/"+names[i];
+		return names;
+	}
+
+}
@@ -7,11 +7,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import structures.basic.Card;
 import structures.basic.EffectAnimation;
+import structures.basic.Grid;
 import structures.basic.Tile;
 import structures.basic.Unit;
 
 /**
- * This class contains methods for producing basic objects from configuration files
+ * This class contains methods for producing basic objects from configuration files.
+ * Cards, units and effects from conf/gameconfs are copied from the GameTemplates read
+ * when the application started, and the board from the BoardGeometry. Other files are
+ * read when they are asked for.
  * 
  * @author Dr. Richard McCreadie
  *
@@ -35,6 +39,8 @@ public class BasicObjectBuilders {
 	 * @return
 	 */
 	public static Card loadCard(String configurationFile, int id, Class<? extends Card> classtype) {
+		Card template = GameTemplates.newCard(configurationFile, id, classtype);
+		if (template!=null) return template;
 		try {
 			Card card = mapper.readValue(new File(configurationFile), classtype);
 			card.setId(id);
@@ -53,6 +59,8 @@ public class BasicObjectBuilders {
 	 * @return
 	 */
 	public static EffectAnimation loadEffect(String configurationFile) {
+		EffectAnimation template = GameTemplates.newEffect(configurationFile);
+		if (template!=null) return template;
 		try {
 			EffectAnimation effect = mapper.readValue(new File(configurationFile), EffectAnimation.class);
 			return effect;
@@ -73,6 +81,8 @@ public class BasicObjectBuilders {
 	 */
 	public static Unit loadUnit(String configFile, int id,  Class<? extends Unit> classType) {
 		
+		Unit template = GameTemplates.newUnit(configFile, id, classType);
+		if (template!=null) return template;
 		try {
 			Unit unit = mapper.readValue(new File(configFile), classType);
 			unit.setId(id);
@@ -86,22 +96,24 @@ public class BasicObjectBuilders {
 	}
 	
 	/**
-	 * Generates a tile object with x and y indices
+	 * The layout of the game board (its size and position) from grid.json, which is only
+	 * read once (see BoardGeometry)
+	 * @return
+	 */
+	public static Grid loadGrid() {
+		return BoardGeometry.getGrid();
+	}
+	
+	/**
+	 * The tile with x and y indices. Tiles on the board are shared and cannot be changed
+	 * (see BoardGeometry), a tile off the board is made when asked for.
 	 * @param x
 	 * @param y
 	 * @return
 	 */
 	public static Tile loadTile(int x, int y) {
-		int gridmargin = 5;
-		int gridTopLeftx = 410;
-		int gridTopLefty = 280;
-		
-		Tile tile = Tile.constructTile(StaticConfFiles.tileConf);
-		tile.setXpos((tile.getWidth()*x)+(gridmargin*x)+gridTopLeftx);
-		tile.setYpos((tile.getHeight()*y)+(gridmargin*y)+gridTopLefty);
-		tile.setTilex(x);
-		tile.setTiley(y);
-		
+		Tile tile = BoardGeometry.getTile(x, y);
+		if (tile==null) tile = BoardGeometry.newTile(x, y);
 		return tile;
 		
 	}
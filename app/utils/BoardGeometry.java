@@ -0,0 +1,185 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import structures.basic.Grid;
+import structures.basic.Tile;
+
+/**
+ * This holds the layout of the game board, read once from grid.json and tile.json (or the
+ * ConfigPack, see GameTemplates.read) rather than each time a tile is needed. If either
+ * cannot be read, the standard board is used instead. Every tile
+ * on the board is made when this is first used, already in its place, and the same tiles
+ * are then shared by every game. Looking up a tile, or getting the whole board, does not
+ * read any files or create any objects.
+ *
+ * The shared tiles cannot be changed: their setters throw UnsupportedOperationException.
+ *
+ */
+public class BoardGeometry {
+
+	/**
+	 * Read the first time the board is used (the holder class is not loaded until then)
+	 */
+	private static class Board {
+		static final Grid grid = readGrid();
+		static final Tile tile = readTile(); // the textures and size of a tile
+		static final Tile[][] tiles = layOut(); // [x][y]
+		static final List<Tile> all = listAll();
+	}
+
+	/**
+	 * A tile that is shared between games, so must not be changed
+	 */
+	private static final class BoardTile extends Tile {
+		BoardTile(List<String> tileTextures, int xpos, int ypos, int width, int height, int tilex, int tiley) {
+			super(tileTextures, xpos, ypos, width, height, tilex, tiley);
+		}
+		@Override
+		public void setTileTextures(List<String> tileTextures) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setXpos(int xpos) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setYpos(int ypos) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setWidth(int width) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setHeight(int height) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setTilex(int tilex) { throw new UnsupportedOperationException("Board tiles are shared"); }
+		@Override
+		public void setTiley(int tiley) { throw new UnsupportedOperationException("Board tiles are shared"); }
+	}
+
+	/**
+	 * Reads grid.json and tile.json if that has not been done yet
+	 */
+	public static void preload() {
+		getWidth();
+	}
+
+	/**
+	 * The layout of the board, as in grid.json. This is a copy, so it can be changed.
+	 * @return
+	 */
+	public static Grid getGrid() {
+		Grid grid = Board.grid;
+		return new Grid(grid.getGridxsize(), grid.getGridysize(), grid.getGridmargin(), grid.getGridTopLeftx(), grid.getGridTopLefty());
+	}
+
+	/**
+	 * @return the number of tiles across the board
+	 */
+	public static int getWidth() {
+		return Board.grid.getGridxsize();
+	}
+
+	/**
+	 * @return the number of tiles down the board
+	 */
+	public static int getHeight() {
+		return Board.grid.getGridysize();
+	}
+
+	/**
+	 * The tile at a grid position
+	 * @param x
+	 * @param y
+	 * @return the tile, or null if the position is not on the board
+	 */
+	public static Tile getTile(int x, int y) {
+		if (x<0 || y<0 || x>=getWidth() || y>=getHeight()) return null;
+		return Board.tiles[x][y];
+	}
+
+	/**
+	 * The tile drawn at a pixel position, e.g. where the player clicked
+	 * @param xpixel
+	 * @param ypixel
+	 * @return the tile, or null if the position is off the board or in the gap between tiles
+	 */
+	public static Tile getTileAt(int xpixel, int ypixel) {
+		Grid grid = Board.grid;
+		int xoffset = xpixel-grid.getGridTopLeftx();
+		int yoffset = ypixel-grid.getGridTopLefty();
+		if (xoffset<0 || yoffset<0) return null;
+
+		int xstep = Board.tile.getWidth()+grid.getGridmargin();
+		int ystep = Board.tile.getHeight()+grid.getGridmargin();
+		if (xoffset%xstep>=Board.tile.getWidth() || yoffset%ystep>=Board.tile.getHeight()) return null; // in the margin
+		return getTile(xoffset/xstep, yoffset/ystep);
+	}
+
+	/**
+	 * Every tile on the board, a row at a time
+	 * @return
+	 */
+	public static List<Tile> getTiles() {
+		return Board.all;
+	}
+
+	/**
+	 * The textures a tile can be drawn with, as in tile.json
+	 * @return
+	 */
+	public static List<String> getTileTextures() {
+		return Board.tiles[0][0].getTileTextures();
+	}
+
+	/**
+	 * A tile that is not on the board, placed where it would be if the board were bigger
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	static Tile newTile(int x, int y) {
+		Grid grid = Board.grid;
+		Tile template = Board.tile;
+		return new Tile(new ArrayList<String>(template.getTileTextures()),
+				(template.getWidth()*x)+(grid.getGridmargin()*x)+grid.getGridTopLeftx(),
+				(template.getHeight()*y)+(grid.getGridmargin()*y)+grid.getGridTopLefty(),
+				template.getWidth(), template.getHeight(), x, y);
+	}
+
+	private static Grid readGrid() {
+		Grid grid = GameTemplates.read(StaticConfFiles.gridConf, Grid.class);
+		if (grid==null) return new Grid(9, 5, 5, 410, 280); // the standard board
+		return grid;
+	}
+
+	private static Tile readTile() {
+		Tile tile = GameTemplates.read(StaticConfFiles.tileConf, Tile.class);
+		if (tile==null || tile.getTileTextures()==null) { // the standard tile
+			return new Tile(Arrays.asList("assets/game/extra/ui/tile_board.png", "assets/game/extra/ui/tile_grid.png", "assets/game/extra/ui/tile_grid_red.png"), 0, 0, 115, 115, 0, 0);
+		}
+		return tile;
+	}
+
+	private static Tile[][] layOut() {
+		Grid grid = Board.grid;
+		Tile template = Board.tile;
+		List<String> textures = Collections.unmodifiableList(new ArrayList<String>(template.getTileTextures()));
+		Tile[][] tiles = new Tile[grid.getGridxsize()][grid.getGridysize()];
+		for (int x = 0; x<tiles.length; x++) {
+			for (int y = 0; y<tiles[x].length; y++) {
+				tiles[x][y] = new BoardTile(textures,
+						(template.getWidth()*x)+(grid.getGridmargin()*x)+grid.getGridTopLeftx(),
+						(template.getHeight()*y)+(grid.getGridmargin()*y)+grid.getGridTopLefty(),
+						template.getWidth(), template.getHeight(), x, y);
+			}
+		}
+		return tiles;
+	}
+
+	private static List<Tile> listAll() {
+		List<Tile> all = new ArrayList<Tile>();
+		for (int y = 0; y<Board.grid.getGridysize(); y++) {
+			for (int x = 0; x<Board.grid.getGridxsize(); x++) all.add(Board.tiles[x][y]);
+		}
+		return Collections.unmodifiableList(all);
+	}
+
+}
@@ -0,0 +1,257 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Every configuration file in conf/gameconfs compiled into one file, so that the game does
+ * not have to find, open and read dozens of files when it starts. The pack is built by
+ * the packConfigs task in build.sbt (which runs main() below), and is read by the
+ * GameTemplates if the files in conf/gameconfs have not changed since it was built.
+ *
+ * The pack is memory-mapped rather than read, and only its index is looked at when it is
+ * opened. A file is only parsed when it is first asked for, so adding more cards does not
+ * make starting the game slower. Checking that the pack is current does read every file,
+ * but only to checksum it, which is much quicker than parsing it.
+ *
+ * The pack holds:
+ *  - "GCPK" and the format version
+ *  - the number of files, then for each one its name (e.g. conf/gameconfs/tile.json),
+ *    where its content starts (after the index), how long it is, and the CRC-32 of the
+ *    file as it was before it was packed. The whole pack must be under 2GB, so these fit
+ *    in an int.
+ *  - the content of each file, as JSON without any whitespace. Files are checked to be
+ *    valid JSON when the pack is built.
+ *
+ */
+public class ConfigPack {
+
+	private static final int magic = 0x4743504B; // "GCPK"
+	private static final int version = 3;
+
+	private static final Logger logger = LoggerFactory.getLogger(ConfigPack.class);
+
+	private static final ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
+
+	private final MappedByteBuffer buffer;
+	private final Map<String,int[]> index; // file -> {start, length, checksum}
+	private final int contentStart;
+
+	private ConfigPack(MappedByteBuffer buffer, Map<String,int[]> index, int contentStart) {
+		this.buffer = buffer;
+		this.index = index;
+		this.contentStart = contentStart;
+	}
+
+	/**
+	 * Builds a pack from the command line: ConfigPack conf/gameconfs conf/gameconfs.pack
+	 * @param args the directory to compile, and the pack to write
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length>0?args[0]:"conf/gameconfs");
+		Path pack = Paths.get(args.length>1?args[1]:"conf/gameconfs.pack");
+		int files = write(directory, pack);
+		System.out.println("Packed "+files+" configuration files into "+pack);
+	}
+
+	/**
+	 * Compiles every .json file in a directory (and the directories in it) into a pack. The
+	 * files are named as they would be from the working directory, e.g. with directory
+	 * conf/gameconfs a card is conf/gameconfs/cards/1_c_s_truestrike.json.
+	 * @param directory
+	 * @param pack the file to write, which is replaced in one go
+	 * @return the number of files packed
+	 * @throws IOException if a file could not be read or is not valid JSON, or the pack
+	 * would be too big
+	 */
+	public static int write(Path directory, Path pack) throws IOException {
+		List<Path> files = configFiles(directory);
+		List<String> names = new ArrayList<String>(files.size());
+		List<byte[]> contents = new ArrayList<byte[]>(files.size());
+		List<Integer> checksums = new ArrayList<Integer>(files.size());
+		long size = 0;
+		for (Path file : files) {
+			byte[] original = Files.readAllBytes(file);
+			names.add(name(file));
+			checksums.add(checksum(original));
+			contents.add(mapper.writeValueAsBytes(mapper.readTree(original)));
+			size += contents.get(contents.size()-1).length;
+		}
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(header);
+		index.writeInt(magic);
+		index.writeInt(version);
+		index.writeInt(files.size());
+		int start = 0;
+		for (int i = 0; i<files.size(); i++) {
+			index.writeUTF(names.get(i));
+			index.writeInt(start);
+			index.writeInt(contents.get(i).length);
+			index.writeInt(checksums.get(i));
+			start += contents.get(i).length; // only wraps if the pack is too big, which is checked below
+		}
+		index.flush();
+		if (header.size()+size>Integer.MAX_VALUE) throw new IOException("The configuration files in "+directory+" are too big for a pack ("+size+" bytes)");
+
+		Path temp = pack.resolveSibling(pack.getFileName()+".tmp");
+		try (OutputStream out = Files.newOutputStream(temp)) {
+			out.write(header.toByteArray());
+			for (byte[] content : contents) out.write(content);
+		}
+		Files.move(temp, pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return files.size();
+	}
+
+	/**
+	 * Opens a pack
+	 * @param pack
+	 * @return
+	 * @throws IOException if it could not be read or is not a pack
+	 */
+	public static ConfigPack open(Path pack) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(pack, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays mapped once the channel is closed
+		}
+
+		ByteBuffer header = buffer.duplicate();
+		DataInputStream in = new DataInputStream(new ByteBufferBackedInputStream(header));
+		if (in.readInt()!=magic || in.readInt()!=version) throw new IOException("Not a configuration pack: "+pack);
+		int count = in.readInt();
+		Map<String,int[]> index = new HashMap<String,int[]>(count*2);
+		for (int i = 0; i<count; i++) {
+			String name = in.readUTF();
+			int start = in.readInt();
+			int length = in.readInt();
+			int checksum = in.readInt();
+			index.put(name, new int[] {start, length, checksum});
+		}
+		return new ConfigPack(buffer, index, header.position());
+	}
+
+	/**
+	 * Opens a pack if the configuration files have not changed since it was built, i.e.
+	 * the same files are there and each has the same checksum. Why a pack is not used is
+	 * logged.
+	 * @param pack
+	 * @param directory the configuration files it was built from
+	 * @return the pack, or null if there is none or it is out of date
+	 */
+	public static ConfigPack openIfCurrent(Path pack, Path directory) {
+		if (!Files.isRegularFile(pack)) {
+			logger.info("pack={} not used, it has not been built", pack);
+			return null;
+		}
+		try {
+			ConfigPack opened = open(pack);
+			List<Path> files = configFiles(directory);
+			if (files.size()!=opened.index.size()) {
+				logger.info("pack={} not used, it has {} files but {} has {}", pack, opened.index.size(), directory, files.size());
+				return null;
+			}
+			for (Path file : files) {
+				int[] entry = opened.index.get(name(file));
+				if (entry==null) {
+					logger.info("pack={} not used, {} is not in it", pack, file);
+					return null;
+				}
+				if (entry[2]!=checksum(Files.readAllBytes(file))) {
+					logger.info("pack={} not used, {} has changed since it was built", pack, file);
+					return null;
+				}
+			}
+			return opened;
+		} catch (IOException e) {
+			logger.info("pack={} not used, it could not be read: {}", pack, e.toString());
+		}
+		return null;
+	}
+
+	/**
+	 * @param file e.g. StaticConfFiles.tileConf
+	 * @return whether the file is in the pack
+	 */
+	public boolean contains(String file) {
+		return index.containsKey(file);
+	}
+
+	/**
+	 * @return the name of every file in the pack
+	 */
+	public Set<String> files() {
+		return Collections.unmodifiableSet(index.keySet());
+	}
+
+	/**
+	 * Parses a file from the pack
+	 * @param file e.g. StaticConfFiles.tileConf
+	 * @param type
+	 * @return the file's content, or null if it is not in the pack or could not be parsed
+	 */
+	public <T> T read(String file, Class<T> type) {
+		int[] entry = index.get(file);
+		if (entry==null) return null;
+		ByteBuffer content = buffer.duplicate(); // so that files can be read at the same time
+		content.position(contentStart+entry[0]);
+		content.limit(contentStart+entry[0]+entry[1]);
+		try {
+			return mapper.readValue(new ByteBufferBackedInputStream(content), type);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	private static int checksum(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return (int)crc.getValue();
+	}
+
+	private static List<Path> configFiles(Path directory) throws IOException {
+		try (Stream<Path> walk = Files.walk(directory)) {
+			return walk.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(".json")).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * The name a file is looked up by, with / between directories on every platform
+	 */
+	private static String name(Path file) {
+		StringBuilder name = new StringBuilder();
+		for (Path part : file) {
+			if (name.length()>0) name.append('/');
+			name.append(part);
+		}
+		return name.toString();
+	}
+
+}
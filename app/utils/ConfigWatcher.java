@@ -0,0 +1,69 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the configuration files in conf/gameconfs while the application runs, and when
+ * any of them change throws away what was read from them, so that new games use the new
+ * files:
+ *  - the GameTemplates (cards, units, avatars and effects)
+ *  - the PreloadManifest
+ *
+ * The board (see BoardGeometry) is not read again. This is turned on by
+ * game.configs.watch in application.conf, and is meant for when the configuration files
+ * are being worked on.
+ *
+ */
+public class ConfigWatcher {
+
+	private final WatchService watcher;
+	private final Thread thread;
+
+	private ConfigWatcher(Path directory) throws IOException {
+		watcher = directory.getFileSystem().newWatchService();
+		register(directory);
+		thread = new Thread(this::watch, "config-watcher");
+		thread.setDaemon(true); // does not stop the application from shutting down
+	}
+
+	/**
+	 * Starts watching a directory and the directories in it, until the application stops
+	 * @param directory e.g. conf/gameconfs
+	 */
+	public static void start(Path directory) {
+		try {
+			new ConfigWatcher(directory).thread.start();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void register(Path directory) throws IOException {
+		directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+			for (Path child : children) register(child);
+		}
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watcher.take();
+				key.pollEvents(); // which file changed does not matter, everything is read again
+				key.reset();
+				GameTemplates.invalidate();
+				PreloadManifest.invalidate();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// stopped
+		}
+	}
+
+}
@@ -0,0 +1,409 @@
+package utils;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import structures.basic.BigCard;
+import structures.basic.Card;
+import structures.basic.EffectAnimation;
+import structures.basic.ImageCorrection;
+import structures.basic.MiniCard;
+import structures.basic.Position;
+import structures.basic.Unit;
+import structures.basic.UnitAnimation;
+import structures.basic.UnitAnimationSet;
+
+/**
+ * This holds every card, unit, avatar and effect in conf/gameconfs, read once rather than
+ * each time one is needed. Each one is kept as a template, looked up by its configuration
+ * file (e.g. StaticConfFiles.c_truestrike), and games are given copies of it, so that
+ * starting a new game does not read or parse any files.
+ *
+ * If the configuration files have been compiled into conf/gameconfs.pack (see ConfigPack)
+ * since they were last changed, each template is read from the pack the first time it is
+ * asked for. Otherwise every file is read in parallel when the application starts (see
+ * Module).
+ *
+ * A copy is cheap: it gets its own id, position and animation state, and a card gets its
+ * own BigCard for its attack and health, but it shares the template's visuals (the
+ * MiniCard of a card, the rules text and textures of its BigCard, and the animations and
+ * image correction of a unit or effect). The shared visuals cannot be changed: their
+ * setters throw UnsupportedOperationException, and their arrays are handed out as copies.
+ * An image path used by more than one template (e.g. a unit and the card that summons it)
+ * is only kept once. See MemoryReport for how much a copy adds to a game.
+ *
+ * BasicObjectBuilders uses this for any configuration file that is here, so most code
+ * does not need to use it directly.
+ *
+ */
+public class GameTemplates {
+
+	private static final Logger logger = LoggerFactory.getLogger(GameTemplates.class);
+
+	private static final ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to read java objects from a file
+
+	private static final String directory = "conf/gameconfs";
+	private static final String packFile = "conf/gameconfs.pack"; // built by the packConfigs task in build.sbt
+
+	private static volatile Templates templates; // null until they have been read
+
+	/**
+	 * Every template read so far, by configuration file
+	 */
+	private static class Templates {
+		final ConfigPack pack = ConfigPack.openIfCurrent(Paths.get(packFile), Paths.get(directory)); // null if it has not been built, or is out of date
+		final Map<String,String> paths = new ConcurrentHashMap<String,String>(); // image path -> the one String kept for it
+		final Map<String,Card> cards = new ConcurrentHashMap<String,Card>();
+		final Map<String,Unit> units = new ConcurrentHashMap<String,Unit>(); // and avatars
+		final Map<String,EffectAnimation> effects = new ConcurrentHashMap<String,EffectAnimation>();
+		Templates() {
+			if (pack!=null) { // read when they are asked for
+				logger.info("templates will be read from pack={}", packFile);
+				return;
+			}
+			logger.info("templates are being read from every file in {}", directory);
+			load(this, cards, directory+"/cards", Card.class);
+			load(this, units, directory+"/units", Unit.class);
+			load(this, units, directory+"/avatars", Unit.class);
+			load(this, effects, directory+"/effects", EffectAnimation.class);
+		}
+	}
+
+	/**
+	 * A card's MiniCard, shared by every copy of the card
+	 */
+	private static final class SharedMiniCard extends MiniCard {
+		SharedMiniCard(MiniCard template) {
+			super(template.getCardTextures(), template.getAnimationFrames(), template.getFps(), template.getIndex());
+		}
+		@Override
+		public String[] getCardTextures() { return copy(super.getCardTextures()); }
+		@Override
+		public String[] getAnimationFrames() { return copy(super.getAnimationFrames()); }
+		@Override
+		public void setCardTextures(String[] cardTextures) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setAnimationFrames(String[] animationFrames) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setFps(int fps) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setIndex(int index) { throw new UnsupportedOperationException("Template visuals are shared"); }
+	}
+
+	/**
+	 * A copy's BigCard: the attack and health are its own, the rules text and textures are
+	 * the template's
+	 */
+	private static final class CopiedBigCard extends BigCard {
+		CopiedBigCard(BigCard template) {
+			super(template.getAttack(), template.getHealth(), template.getRulesTextRows(), template.getCardTextures());
+		}
+		@Override
+		public String[] getRulesTextRows() { return copy(super.getRulesTextRows()); }
+		@Override
+		public String[] getCardTextures() { return copy(super.getCardTextures()); }
+	}
+
+	/**
+	 * A unit's animations, shared by every copy of the unit
+	 */
+	private static final class SharedAnimations extends UnitAnimationSet {
+		SharedAnimations(UnitAnimationSet template, List<String> allFrames) {
+			super(allFrames, share(template.getIdle()), share(template.getDeath()), share(template.getAttack()),
+					share(template.getMove()), share(template.getChannel()), share(template.getHit()));
+		}
+		@Override
+		public void setAllFrames(List<String> allFrames) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setIdle(UnitAnimation idle) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setDeath(UnitAnimation death) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setAttack(UnitAnimation attack) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setMove(UnitAnimation move) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setChannel(UnitAnimation channel) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setHit(UnitAnimation hit) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		private static UnitAnimation share(UnitAnimation animation) {
+			return animation==null?null:new SharedAnimation(animation);
+		}
+	}
+
+	/**
+	 * One of a unit's animations, shared by every copy of the unit
+	 */
+	private static final class SharedAnimation extends UnitAnimation {
+		SharedAnimation(UnitAnimation template) {
+			super(template.getFrameStartEndIndices(), template.getFps(), template.isLoop());
+		}
+		@Override
+		public int[] getFrameStartEndIndices() { return copy(super.getFrameStartEndIndices()); }
+		@Override
+		public void setFrameStartEndIndices(int[] frameStartEndIndices) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setFps(int fps) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setLoop(boolean loop) { throw new UnsupportedOperationException("Template visuals are shared"); }
+	}
+
+	/**
+	 * A unit's or effect's image correction, shared by every copy
+	 */
+	private static final class SharedCorrection extends ImageCorrection {
+		SharedCorrection(ImageCorrection template) {
+			super(template.getImgWidth(), template.getImgHeight(), template.getSpriteTopLeftX(), template.getSpriteTopLeftY(),
+					template.getOffsetX(), template.getOffsetY(), template.getScale(), template.isReflected());
+		}
+		@Override
+		public void setImgWidth(double imgWidth) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setImgHeight(double imgHeight) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setSpriteTopLeftX(double spriteTopLeftX) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setSpriteTopLeftY(double spriteTopLeftY) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setOffsetX(double offsetX) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setOffsetY(double offsetY) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setScale(double scale) { throw new UnsupportedOperationException("Template visuals are shared"); }
+		@Override
+		public void setReflected(boolean reflected) { throw new UnsupportedOperationException("Template visuals are shared"); }
+	}
+
+	/**
+	 * Reads the templates (or opens the pack) if that has not been done yet. This is called
+	 * when the application starts, so that the first game does not have to wait for them.
+	 */
+	public static void preload() {
+		get();
+	}
+
+	/**
+	 * Every template read so far, for working out how much memory they take up
+	 * @return
+	 */
+	public static List<Object> templates() {
+		Templates loaded = get();
+		List<Object> all = new ArrayList<Object>();
+		all.addAll(loaded.cards.values());
+		all.addAll(loaded.units.values());
+		all.addAll(loaded.effects.values());
+		return all;
+	}
+
+	/**
+	 * Throws the templates away, so that they are read again when they are next needed
+	 * (see ConfigWatcher). Games that have already started keep what they were given.
+	 */
+	public static void invalidate() {
+		synchronized (GameTemplates.class) {
+			templates = null;
+		}
+	}
+
+	/**
+	 * The templates are not read in a static initializer, as the threads reading them in
+	 * parallel would wait for the class to finish initializing
+	 * @return
+	 */
+	private static Templates get() {
+		Templates loaded = templates;
+		if (loaded==null) {
+			synchronized (GameTemplates.class) {
+				if (templates==null) templates = new Templates();
+				loaded = templates;
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * A new card copied from a template
+	 * @param configFile e.g. StaticConfFiles.c_truestrike
+	 * @param id
+	 * @param classType the type of Card to create, which must have a no-argument constructor
+	 * @return the card, or null if there is no template for the file
+	 */
+	public static Card newCard(String configFile, int id, Class<? extends Card> classType) {
+		Templates loaded = get();
+		Card template = template(loaded, loaded.cards, configFile, Card.class, directory+"/cards/");
+		if (template==null) return null;
+		try {
+			Card card = classType.getDeclaredConstructor().newInstance();
+			card.setId(id);
+			card.setCardname(template.getCardname());
+			card.setManacost(template.getManacost());
+			card.setMiniCard(template.getMiniCard());
+			if (template.getBigCard()!=null) card.setBigCard(new CopiedBigCard(template.getBigCard()));
+			return card;
+		} catch (ReflectiveOperationException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * A new unit copied from a template
+	 * @param configFile e.g. StaticConfFiles.u_fire_spitter or StaticConfFiles.humanAvatar
+	 * @param id
+	 * @param classType the type of Unit to create, which must have a no-argument constructor
+	 * @return the unit, or null if there is no template for the file
+	 */
+	public static Unit newUnit(String configFile, int id, Class<? extends Unit> classType) {
+		Templates loaded = get();
+		Unit template = template(loaded, loaded.units, configFile, Unit.class, directory+"/units/", directory+"/avatars/");
+		if (template==null) return null;
+		try {
+			Unit unit = classType.getDeclaredConstructor().newInstance();
+			unit.setId(id);
+			unit.setAnimation(template.getAnimation());
+			Position position = template.getPosition();
+			if (position!=null) unit.setPosition(new Position(position.getXpos(), position.getYpos(), position.getTilex(), position.getTiley()));
+			unit.setAnimations(template.getAnimations());
+			unit.setCorrection(template.getCorrection());
+			return unit;
+		} catch (ReflectiveOperationException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * A new effect copied from a template
+	 * @param configFile e.g. StaticConfFiles.f1_buff
+	 * @return the effect, or null if there is no template for the file
+	 */
+	public static EffectAnimation newEffect(String configFile) {
+		Templates loaded = get();
+		EffectAnimation template = template(loaded, loaded.effects, configFile, EffectAnimation.class, directory+"/effects/");
+		if (template==null) return null;
+		return new EffectAnimation(template.getAnimationTextures(), template.getCorrection(), template.getFps());
+	}
+
+	/**
+	 * Reads any configuration file, from the pack if there is one
+	 * @param configFile e.g. StaticConfFiles.gridConf
+	 * @param type
+	 * @return the file's content, or null if it could not be read
+	 */
+	public static <T> T read(String configFile, Class<T> type) {
+		ConfigPack pack = get().pack;
+		if (pack!=null && pack.contains(configFile)) return pack.read(configFile, type);
+		try {
+			return mapper.readValue(new File(configFile), type);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Looks up a template, reading it from the pack the first time
+	 * @param loaded
+	 * @param templates
+	 * @param configFile
+	 * @param type
+	 * @param directories where templates of this type are kept
+	 * @return the template, or null if there is none for the file
+	 */
+	private static <T> T template(Templates loaded, Map<String,T> templates, String configFile, Class<T> type, String... directories) {
+		T template = templates.get(configFile);
+		if (template!=null || loaded.pack==null || !loaded.pack.contains(configFile)) return template;
+		for (String kept : directories) {
+			if (configFile.startsWith(kept)) return templates.computeIfAbsent(configFile, file -> share(loaded, loaded.pack.read(file, type)));
+		}
+		return null;
+	}
+
+	/**
+	 * Reads every configuration file in a directory at the same time
+	 * @param loaded
+	 * @param templates where to put them, by configuration file
+	 * @param directory
+	 * @param type
+	 */
+	private static <T> void load(Templates loaded, Map<String,T> templates, String directory, Class<T> type) {
+		String[] names = new File(directory).list((dir, name) -> name.endsWith(".json"));
+		if (names==null) return;
+
+		List<String> files = new ArrayList<String>(names.length);
+		for (String name : names) files.add(directory+"/"+name);
+		files.parallelStream().forEach(file -> {
+			try {
+				templates.put(file, share(loaded, mapper.readValue(new File(file), type)));
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Makes a template's image paths share one String with every other template, and its
+	 * visuals impossible to change, as they are shared by every game
+	 * @param loaded
+	 * @param template
+	 * @return the template
+	 */
+	private static <T> T share(Templates loaded, T template) {
+		Map<String,String> pool = loaded.paths;
+		if (template instanceof Card) {
+			Card card = (Card)template;
+			if (card.getMiniCard()!=null) {
+				share(pool, card.getMiniCard().getCardTextures());
+				share(pool, card.getMiniCard().getAnimationFrames());
+				card.setMiniCard(new SharedMiniCard(card.getMiniCard()));
+			}
+			if (card.getBigCard()!=null) share(pool, card.getBigCard().getCardTextures()); // copied by each card, see CopiedBigCard
+		} else if (template instanceof Unit) {
+			Unit unit = (Unit)template;
+			if (unit.getAnimations()!=null) unit.setAnimations(new SharedAnimations(unit.getAnimations(), share(pool, unit.getAnimations().getAllFrames())));
+			if (unit.getCorrection()!=null) unit.setCorrection(new SharedCorrection(unit.getCorrection()));
+		} else if (template instanceof EffectAnimation) {
+			EffectAnimation effect = (EffectAnimation)template;
+			effect.setAnimationTextures(share(pool, effect.getAnimationTextures()));
+			if (effect.getCorrection()!=null) effect.setCorrection(new SharedCorrection(effect.getCorrection()));
+		}
+		return template;
+	}
+
+	private static void share(Map<String,String> pool, String[] paths) {
+		if (paths==null) return;
+		for (int i = 0; i<paths.length; i++) paths[i] = share(pool, paths[i]);
+	}
+
+	private static List<String> share(Map<String,String> pool, List<String> paths) {
+		if (paths==null) return null;
+		List<String> shared = new ArrayList<String>(paths.size());
+		for (String path : paths) shared.add(share(pool, path));
+		return Collections.unmodifiableList(shared);
+	}
+
+	private static String[] copy(String[] array) {
+		return array==null?null:array.clone();
+	}
+
+	private static int[] copy(int[] array) {
+		return array==null?null:array.clone();
+	}
+
+	private static String share(Map<String,String> pool, String path) {
+		if (path==null) return null;
+		String shared = pool.putIfAbsent(path, path);
+		return shared==null?path:shared;
+	}
+
+}
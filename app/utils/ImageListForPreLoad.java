@@ -6,7 +6,6 @@ import java.util.List;
 import java.util.Set;
 
 import structures.basic.Card;
-import structures.basic.Tile;
 import structures.basic.Unit;
 
 /**
@@ -42,7 +41,7 @@ public class ImageListForPreLoad {
 		images.add("assets/game/extra/ui/button_primary.png");
 		
 		// Tiles
-		images.addAll(Tile.constructTile(StaticConfFiles.tileConf).getTileTextures());
+		images.addAll(BoardGeometry.getTileTextures());
 		
 		// Avatars
 		images.addAll(BasicObjectBuilders.loadUnit(StaticConfFiles.humanAvatar, -1, Unit.class).getAnimations().getAllFrames());
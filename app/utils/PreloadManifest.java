@@ -0,0 +1,83 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * This holds the list of images the front-end pre-loads (see ImageListForPreLoad), worked
+ * out once and kept as the JSON text that goes in the actorReady message, rather than
+ * building and serializing the list for every new connection. An actorReady message is
+ * then just this text with the game's session token added.
+ *
+ * invalidate() throws the list away, so that it is worked out again the next time it is
+ * needed. This is done when the configuration files change (see ConfigWatcher).
+ *
+ */
+public class PreloadManifest {
+
+	private static final ObjectMapper mapper = new ObjectMapper(); // Jackson Java Object Serializer, is used to turn java objects to Strings
+
+	private static volatile String images; // the preloadImages array as JSON text, null until it has been worked out
+
+	/**
+	 * Works out the list if that has not been done yet. This is called when the application
+	 * starts, so that the first connection does not have to wait for it.
+	 */
+	public static void preload() {
+		getImages();
+	}
+
+	/**
+	 * The actorReady message for a new connection
+	 * @param session the game's session token, or null
+	 * @return the text to send to the front-end
+	 */
+	public static String actorReady(String session) {
+		String preloadImages = getImages();
+		StringBuilder message = new StringBuilder(preloadImages.length()+80);
+		message.append("{\"messagetype\":\"actorReady\",\"preloadImages\":").append(preloadImages);
+		if (session!=null) message.append(",\"session\":").append(TextNode.valueOf(session).toString());
+		return message.append('}').toString();
+	}
+
+	/**
+	 * The preloadImages array as JSON text. The images are sorted, so that the text is the
+	 * same each time it is worked out.
+	 * @return
+	 */
+	public static String getImages() {
+		String loaded = images;
+		if (loaded==null) {
+			synchronized (PreloadManifest.class) {
+				if (images==null) images = build();
+				loaded = images;
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Throws the list away, so that it is worked out again when it is next needed
+	 */
+	public static void invalidate() {
+		synchronized (PreloadManifest.class) {
+			images = null;
+		}
+	}
+
+	private static String build() {
+		List<String> sorted = new ArrayList<String>(ImageListForPreLoad.getImageListForPreLoad());
+		Collections.sort(sorted);
+		try {
+			return mapper.writeValueAsString(sorted);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return "[]";
+	}
+
+}
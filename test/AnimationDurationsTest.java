@@ -0,0 +1,36 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import structures.basic.Unit;
+import structures.basic.UnitAnimationType;
+import utils.AnimationDurations;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+/**
+ * Checks the animation durations against the frame counts and fps in the config files
+ *
+ */
+public class AnimationDurationsTest {
+
+	@Test
+	public void durationsMatchTheConfigFiles() {
+
+		// avatar1 attack is frames 28-59 at 20fps, death is frames 16-27 at 8fps
+		assertEquals(1600, AnimationDurations.getUnitDuration(StaticConfFiles.humanAvatar, UnitAnimationType.attack));
+		assertEquals(1500, AnimationDurations.getUnitDuration(StaticConfFiles.humanAvatar, UnitAnimationType.death));
+
+		// a loaded unit gives the same answer as its config file
+		Unit unit = BasicObjectBuilders.loadUnit(StaticConfFiles.u_azurite_lion, 1, Unit.class);
+		assertEquals(AnimationDurations.getUnitDuration(StaticConfFiles.u_azurite_lion, UnitAnimationType.attack),
+				AnimationDurations.getDuration(unit, UnitAnimationType.attack));
+
+		// azurite lion has no channel frames (48-47)
+		assertEquals(0, AnimationDurations.getDuration(unit, UnitAnimationType.channel));
+
+		// f1_summon has 10 textures at 9fps
+		assertEquals(1111, AnimationDurations.getEffectDuration(StaticConfFiles.f1_summon));
+	}
+
+}
@@ -0,0 +1,48 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import structures.basic.Tile;
+import utils.BasicObjectBuilders;
+import utils.BoardGeometry;
+
+/**
+ * Checks that the BoardGeometry places its tiles as grid.json says, shares them, and finds
+ * the tile under a pixel
+ *
+ */
+public class BoardGeometryTest {
+
+	@Test
+	public void tilesArePlacedOnceAndShared() {
+
+		assertEquals(45, BoardGeometry.getTiles().size());
+		assertSame(BoardGeometry.getTile(3, 2), BasicObjectBuilders.loadTile(3, 2));
+
+		Tile tile = BoardGeometry.getTile(3, 2);
+		assertEquals((115*3)+(5*3)+410, tile.getXpos());
+		assertEquals((115*2)+(5*2)+280, tile.getYpos());
+		assertNull(BoardGeometry.getTile(9, 0));
+		assertEquals(9, BasicObjectBuilders.loadTile(9, 0).getTilex()); // off the board, but still made
+
+		try {
+			tile.setXpos(0);
+			throw new AssertionError("a shared tile was changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void pixelsAreLookedUp() {
+
+		assertSame(BoardGeometry.getTile(0, 0), BoardGeometry.getTileAt(410, 280));
+		assertSame(BoardGeometry.getTile(3, 2), BoardGeometry.getTileAt(410+(120*3)+50, 280+(120*2)+114));
+		assertNull(BoardGeometry.getTileAt(410+117, 280)); // the gap between two tiles
+		assertNull(BoardGeometry.getTileAt(400, 300));
+		assertNull(BoardGeometry.getTileAt(410+(120*9), 280));
+	}
+
+}
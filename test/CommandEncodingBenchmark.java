@@ -0,0 +1,125 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import commands.CommandEncoder;
+import play.libs.Json;
+import structures.basic.Card;
+import structures.basic.Tile;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.StaticConfFiles;
+
+/**
+ * A small benchmark comparing the original way that BasicCommands built its messages
+ * (write each object out to a String with the ObjectMapper, then parse it straight
+ * back in with readTree) against the single-pass CommandEncoder. For each command it
+ * reports the time and the number of bytes allocated per message.
+ *
+ * This is not a unit test, run it from the project root with:
+ *   sbt "Test/runMain CommandEncodingBenchmark"
+ *
+ */
+public class CommandEncodingBenchmark {
+
+	private static final int warmup = 20000;
+	private static final int iterations = 100000;
+
+	private static ObjectMapper mapper = new ObjectMapper();
+
+	public static void main(String[] args) throws Exception {
+
+		Tile tile = BasicObjectBuilders.loadTile(3, 2);
+		Unit unit = BasicObjectBuilders.loadUnit(StaticConfFiles.u_fire_spitter, 1, Unit.class);
+		unit.setPositionByTile(tile);
+		Card card = BasicObjectBuilders.loadCard(StaticConfFiles.c_fire_spitter, 2, Card.class);
+
+		Map<String,Supplier<ObjectNode>> legacy = new LinkedHashMap<String,Supplier<ObjectNode>>();
+		Map<String,Supplier<ObjectNode>> encoder = new LinkedHashMap<String,Supplier<ObjectNode>>();
+
+		legacy.put("drawTile", () -> {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "drawTile");
+			returnMessage.set("tile", readBack(tile));
+			returnMessage.put("mode", 0);
+			return returnMessage;
+		});
+		encoder.put("drawTile", () -> CommandEncoder.drawTile(tile, 0));
+
+		legacy.put("drawUnit", () -> {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "drawUnit");
+			returnMessage.set("tile", readBack(tile));
+			returnMessage.set("unit", readBack(unit));
+			return returnMessage;
+		});
+		encoder.put("drawUnit", () -> CommandEncoder.drawUnit(unit, tile));
+
+		legacy.put("setUnitAttack", () -> {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "setUnitAttack");
+			returnMessage.set("unit", readBack(unit));
+			returnMessage.put("attack", 2);
+			return returnMessage;
+		});
+		encoder.put("setUnitAttack", () -> CommandEncoder.setUnitAttack(unit, 2));
+
+		legacy.put("drawCard", () -> {
+			ObjectNode returnMessage = Json.newObject();
+			returnMessage.put("messagetype", "drawCard");
+			returnMessage.set("card", readBack(card));
+			returnMessage.put("position", 1);
+			returnMessage.put("mode", 0);
+			return returnMessage;
+		});
+		encoder.put("drawCard", () -> CommandEncoder.drawCard(card, 1, 0));
+
+		System.out.println(String.format("%-15s %14s %14s %16s %16s", "command", "before ns/op", "after ns/op", "before bytes/op", "after bytes/op"));
+		for (String command : legacy.keySet()) {
+
+			// both versions must produce exactly the same message
+			if (!legacy.get(command).get().equals(encoder.get(command).get())) {
+				throw new IllegalStateException("Encoded message for "+command+" does not match the original");
+			}
+
+			long[] before = measure(legacy.get(command));
+			long[] after = measure(encoder.get(command));
+			System.out.println(String.format("%-15s %14d %14d %16d %16d", command, before[0], after[0], before[1], after[1]));
+		}
+	}
+
+	private static ObjectNode readBack(Object value) {
+		try {
+			return (ObjectNode)mapper.readTree(mapper.writeValueAsString(value));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns {nanoseconds per op, bytes allocated per op}
+	 * @param command
+	 * @return
+	 */
+	private static long[] measure(Supplier<ObjectNode> command) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		long sink = 0;
+		for (int i = 0; i<warmup; i++) sink += command.get().size();
+
+		long startBytes = threads.getThreadAllocatedBytes(threadId);
+		long startTime = System.nanoTime();
+		for (int i = 0; i<iterations; i++) sink += command.get().size();
+		long time = System.nanoTime()-startTime;
+		long bytes = threads.getThreadAllocatedBytes(threadId)-startBytes;
+
+		if (sink==0) System.out.println(); // stops the loop being optimised away
+		return new long[] {time/iterations, bytes/iterations};
+	}
+
+}
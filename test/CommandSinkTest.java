@@ -0,0 +1,75 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import commands.BasicCommands;
+import commands.CountingSink;
+import commands.RecordingSink;
+import structures.basic.Tile;
+import utils.BasicObjectBuilders;
+
+/**
+ * Checks that games can be given their own CommandSink, so that many games can issue
+ * commands at the same time without a front-end (and without using altTell).
+ *
+ */
+public class CommandSinkTest {
+
+	/**
+	 * Each game records only its own commands
+	 */
+	@Test
+	public void gamesUseTheirOwnSink() {
+
+		Tile tile = BasicObjectBuilders.loadTile(3, 2);
+
+		RecordingSink game1 = new RecordingSink();
+		RecordingSink game2 = new RecordingSink();
+
+		BasicCommands.drawTile(game1, tile, 0);
+		BasicCommands.drawTile(game1, tile, 1);
+		BasicCommands.addPlayer1Notification(game2, "hello", 2);
+
+		assertEquals(2, game1.getCommands("drawTile").size());
+		assertEquals(1, game1.getCommands("drawTile").get(1).get("mode").asInt());
+		assertEquals(0, game1.getCommands("addPlayer1Notification").size());
+		assertEquals(1, game2.getCommands().size());
+	}
+
+	/**
+	 * Lots of games can run in parallel, sharing a CountingSink to count the commands
+	 */
+	@Test
+	public void parallelGamesShareACountingSink() throws Exception {
+
+		Tile tile = BasicObjectBuilders.loadTile(3, 2);
+		CountingSink counter = new CountingSink();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Integer>> games = new ArrayList<Future<Integer>>();
+		for (int game = 0; game<100; game++) {
+			games.add(executor.submit(() -> {
+				RecordingSink own = new RecordingSink();
+				for (int i = 0; i<45; i++) {
+					BasicCommands.drawTile(own, tile, 0);
+					BasicCommands.drawTile(counter, tile, 0);
+				}
+				return own.getCommands().size();
+			}));
+		}
+		for (Future<Integer> game : games) assertEquals(45, (int)game.get());
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		assertEquals(4500, counter.getCount("drawTile"));
+		assertEquals(4500, counter.getTotal());
+	}
+
+}
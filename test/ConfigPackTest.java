@@ -0,0 +1,82 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Test;
+
+import structures.basic.Card;
+import structures.basic.Grid;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.ConfigPack;
+import utils.StaticConfFiles;
+
+/**
+ * Checks that the configuration files read back from a ConfigPack are the same as the
+ * files, and that a pack is not used once the files have changed
+ *
+ */
+public class ConfigPackTest {
+
+	@Test
+	public void filesAreReadBackFromThePack() throws Exception {
+
+		Path pack = Files.createTempFile("gameconfs", ".pack");
+		try {
+			int files = ConfigPack.write(Paths.get("conf/gameconfs"), pack);
+			ConfigPack opened = ConfigPack.open(pack);
+			assertEquals(files, opened.files().size());
+
+			Card card = opened.read(StaticConfFiles.c_truestrike, Card.class);
+			Card fromFile = BasicObjectBuilders.loadCard(StaticConfFiles.c_truestrike, 0, Card.class);
+			assertEquals(fromFile.getCardname(), card.getCardname());
+			assertEquals(fromFile.getManacost(), card.getManacost());
+
+			Unit unit = opened.read(StaticConfFiles.u_fire_spitter, Unit.class);
+			assertEquals(BasicObjectBuilders.loadUnit(StaticConfFiles.u_fire_spitter, 0, Unit.class).getAnimations().getAllFrames(), unit.getAnimations().getAllFrames());
+
+			assertEquals(9, opened.read(StaticConfFiles.gridConf, Grid.class).getGridxsize());
+			assertNull(opened.read("conf/gameconfs/cards/nosuchcard.json", Card.class));
+		} finally {
+			Files.deleteIfExists(pack);
+		}
+	}
+
+	@Test
+	public void packIsOnlyUsedWhileItIsCurrent() throws Exception {
+
+		Path directory = Files.createTempDirectory("gameconfs");
+		Path config = directory.resolve("grid.json");
+		Path added = directory.resolve("tile.json");
+		Path pack = directory.resolve("gameconfs.pack");
+		try {
+			Files.copy(Paths.get(StaticConfFiles.gridConf), config);
+			ConfigPack.write(directory, pack);
+			assertNotNull(ConfigPack.openIfCurrent(pack, directory));
+
+			// only what is in the files matters, not when they were last changed (e.g. unzipped from a dist)
+			Files.setLastModifiedTime(config, FileTime.fromMillis(Files.getLastModifiedTime(config).toMillis()-2000));
+			assertNotNull(ConfigPack.openIfCurrent(pack, directory));
+
+			byte[] original = Files.readAllBytes(config);
+			Files.write(config, new String(original, StandardCharsets.UTF_8).replace("9", "8").getBytes(StandardCharsets.UTF_8)); // changed since the pack was built
+			assertNull(ConfigPack.openIfCurrent(pack, directory));
+
+			Files.write(config, original);
+			Files.copy(Paths.get(StaticConfFiles.tileConf), added);
+			assertNull(ConfigPack.openIfCurrent(pack, directory));
+		} finally {
+			Files.deleteIfExists(added);
+			Files.deleteIfExists(config);
+			Files.deleteIfExists(pack);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+}
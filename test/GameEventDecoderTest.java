@@ -0,0 +1,36 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import events.EventType;
+import events.GameEvent;
+import events.GameEventDecoder;
+
+/**
+ * Checks that websocket messages from the front-end are decoded into GameEvents
+ *
+ */
+public class GameEventDecoderTest {
+
+	@Test
+	public void decodesEventFields() {
+
+		GameEvent tile = GameEventDecoder.decode("{\"messagetype\":\"tileclicked\",\"tilex\":3,\"tiley\":2}");
+		assertEquals(EventType.tileclicked, tile.getType());
+		assertEquals(3, tile.getTilex());
+		assertEquals(2, tile.getTiley());
+
+		// fields can come in any order, and fields we do not use are skipped
+		GameEvent stopped = GameEventDecoder.decode("{\"id\":7,\"extra\":{\"a\":[1,2]},\"tilex\":1,\"messagetype\":\"unitstopped\",\"tiley\":4}");
+		assertEquals(EventType.unitstopped, stopped.getType());
+		assertEquals(7, stopped.getId());
+		assertEquals(4, stopped.getTiley());
+		assertEquals(-1, stopped.getPosition());
+
+		GameEvent unknown = GameEventDecoder.decode("{\"messagetype\":\"somethingelse\"}");
+		assertNull(unknown.getType());
+		assertEquals("somethingelse", unknown.getMessageType());
+	}
+
+}
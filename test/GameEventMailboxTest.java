@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import actors.GameEventMailbox;
+import actors.InboundMessage;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MessageQueue;
+import events.EventType;
+import scala.Option;
+
+/**
+ * Checks that the GameActor's mailbox hands out the user's input before heartbeats and
+ * other messages, and only keeps the latest heartbeat
+ *
+ */
+public class GameEventMailboxTest {
+
+	@Test
+	public void inputJumpsTheQueueAndHeartbeatsAreCoalesced() {
+
+		ActorSystem system = ActorSystem.create("mailboxtest");
+		try {
+			GameEventMailbox mailbox = new GameEventMailbox(system.settings(), ConfigFactory.empty());
+			MessageQueue queue = mailbox.create(Option.<ActorRef>empty(), Option.<ActorSystem>empty());
+
+			InboundMessage heartbeat1 = InboundMessage.decode("{\"messagetype\":\"heartbeat\"}", 1);
+			InboundMessage tileClicked = InboundMessage.decode("{\"messagetype\":\"tileclicked\",\"tilex\":3,\"tiley\":2}", 2);
+			InboundMessage heartbeat2 = InboundMessage.decode("{\"messagetype\":\"heartbeat\"}", 3);
+			InboundMessage cardClicked = InboundMessage.decode("{\"messagetype\":\"cardclicked\",\"position\":1}", 4);
+
+			queue.enqueue(ActorRef.noSender(), Envelope.apply(heartbeat1, ActorRef.noSender(), system));
+			queue.enqueue(ActorRef.noSender(), Envelope.apply("task", ActorRef.noSender(), system));
+			queue.enqueue(ActorRef.noSender(), Envelope.apply(tileClicked, ActorRef.noSender(), system));
+			queue.enqueue(ActorRef.noSender(), Envelope.apply(heartbeat2, ActorRef.noSender(), system));
+			queue.enqueue(ActorRef.noSender(), Envelope.apply(cardClicked, ActorRef.noSender(), system));
+
+			assertEquals(4, queue.numberOfMessages()); // the first heartbeat has been dropped
+
+			assertEquals(EventType.tileclicked, ((InboundMessage)queue.dequeue().message()).getEvent().getType());
+			assertEquals(EventType.cardclicked, ((InboundMessage)queue.dequeue().message()).getEvent().getType());
+			assertEquals("task", queue.dequeue().message());
+			assertEquals(heartbeat2, queue.dequeue().message());
+			assertNull(queue.dequeue());
+			assertEquals(0, queue.numberOfMessages());
+		} finally {
+			system.terminate();
+		}
+	}
+
+}
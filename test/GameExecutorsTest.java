@@ -0,0 +1,99 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import commands.RecordingSink;
+import events.AsyncEventProcessor;
+import events.GameEvent;
+import events.GameExecutors;
+import events.Heartbeat;
+import structures.GameState;
+
+/**
+ * Checks that slow work is run away from the game's thread, that its result is only
+ * handed back when the game runs its scheduled tasks, and never once it has been abandoned
+ *
+ */
+public class GameExecutorsTest {
+
+	@Test
+	public void resultIsHandedBackOnTheGameThread() throws Exception {
+
+		List<Runnable> scheduled = new ArrayList<Runnable>(); // tasks for the game's thread, run by hand below
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		GameExecutors executors = new GameExecutors(pool, pool, (delay, task) -> {
+			synchronized (scheduled) {
+				scheduled.add(task);
+			}
+		});
+
+		Thread gameThread = Thread.currentThread();
+		List<Thread> ranOn = new ArrayList<Thread>();
+		CompletionStage<Void> done = executors.compute(() -> {
+			ranOn.add(Thread.currentThread());
+			return 42;
+		}).thenAccept(result -> {
+			assertEquals(42, (int)result);
+			ranOn.add(Thread.currentThread());
+		});
+
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+
+		// the work has finished, but nothing is handed back until the game's tasks run
+		assertFalse(done.toCompletableFuture().isDone());
+		assertEquals(1, ranOn.size());
+		assertTrue(ranOn.get(0)!=gameThread);
+
+		synchronized (scheduled) {
+			for (Runnable task : scheduled) task.run();
+		}
+		assertTrue(done.toCompletableFuture().isDone());
+		assertEquals(gameThread, ranOn.get(1));
+	}
+
+	@Test
+	public void abandonedWorkDoesNotChangeTheGame() throws Exception {
+
+		List<Runnable> scheduled = new ArrayList<Runnable>();
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		GameExecutors executors = new GameExecutors(pool, pool, (delay, task) -> {
+			synchronized (scheduled) {
+				scheduled.add(task);
+			}
+		});
+
+		GameState gameState = new GameState();
+		CompletionStage<Void> late = executors.compute(() -> true).thenAccept(result -> gameState.something = result);
+		executors.abandon(); // the game timed the processor out before its work came back
+		CompletionStage<Boolean> next = executors.compute(() -> true); // started by the next event
+
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+		synchronized (scheduled) {
+			for (Runnable task : scheduled) task.run();
+		}
+		assertFalse(late.toCompletableFuture().isDone());
+		assertFalse(gameState.something);
+		assertTrue(next.toCompletableFuture().isDone());
+	}
+
+	@Test
+	public void normalProcessorsFinishStraightAway() {
+
+		AsyncEventProcessor heartbeat = AsyncEventProcessor.of(new Heartbeat());
+		GameEvent event = new GameEvent(null, "heartbeat", -1, -1, -1, -1);
+		CompletionStage<?> done = heartbeat.processEvent(new RecordingSink(), new GameState(), event, null);
+		assertTrue(done.toCompletableFuture().isDone());
+	}
+
+}
@@ -0,0 +1,136 @@
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import actors.GameRegistry;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.pattern.Patterns;
+
+/**
+ * Checks that the GameRegistry gives out games until the server is full, lets a front-end
+ * reconnect to its game with the session token, and forgets about games once their
+ * connection has been closed for longer than the reconnect timeout, or passivates them
+ *
+ */
+public class GameRegistryTest {
+
+	@Test
+	public void connectionsAreTurnedAwayWhenFull() throws Exception {
+
+		ActorSystem system = ActorSystem.create("registrytest", ConfigFactory.parseString("game.registry.max-games = 1\ngame.registry.reconnect-timeout = 100ms\ngame.passivation.enabled = false").withFallback(ConfigFactory.load()));
+		try {
+			ActorRef registry = system.actorOf(Props.create(GameRegistry.class), "registry");
+			ActorRef out = system.deadLetters(); // no front-end
+
+			Object first = ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), out, null));
+			assertTrue(first instanceof GameRegistry.Joined);
+			String gameId = ((GameRegistry.Joined)first).gameId;
+			assertEquals(((GameRegistry.Joined)first).game, ((GameRegistry.Found)ask(registry, new GameRegistry.Find(gameId))).game);
+
+			assertTrue(ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), out, null)) instanceof GameRegistry.Rejected);
+			GameRegistry.Stats stats = (GameRegistry.Stats)ask(registry, GameRegistry.GetStats);
+			assertEquals(1, stats.games);
+			assertEquals(1, stats.connections);
+
+			// once the connection has been closed for a while the game ends, and there is room again
+			registry.tell(new GameRegistry.Disconnect(gameId, out), ActorRef.noSender());
+			await().atMost(5, TimeUnit.SECONDS).until(() -> ((GameRegistry.Stats)ask(registry, GameRegistry.GetStats)).games==0);
+			assertNull(((GameRegistry.Found)ask(registry, new GameRegistry.Find(gameId))).game);
+			assertTrue(ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), out, null)) instanceof GameRegistry.Joined);
+		} finally {
+			system.terminate();
+		}
+	}
+
+	@Test
+	public void aFrontEndCanReconnectToItsGame() throws Exception {
+
+		ActorSystem system = ActorSystem.create("reconnecttest", ConfigFactory.parseString("game.registry.max-games = 1").withFallback(ConfigFactory.load()));
+		try {
+			ActorRef registry = system.actorOf(Props.create(GameRegistry.class), "registry");
+			ActorRef first = system.actorOf(Props.empty());
+			ActorRef second = system.actorOf(Props.empty());
+
+			GameRegistry.Joined joined = (GameRegistry.Joined)ask(registry, new GameRegistry.Connect(first, first, null));
+			assertNotNull(joined.session);
+			registry.tell(new GameRegistry.Disconnect(joined.gameId, first), ActorRef.noSender());
+
+			// the same game is joined again, even though the server is full
+			GameRegistry.Joined rejoined = (GameRegistry.Joined)ask(registry, new GameRegistry.Connect(second, second, joined.session));
+			assertEquals(joined.gameId, rejoined.gameId);
+			assertEquals(joined.game, rejoined.game);
+
+			// a late Disconnect from the old connection does not close the game's new one
+			registry.tell(new GameRegistry.Disconnect(joined.gameId, first), ActorRef.noSender());
+			GameRegistry.Stats stats = (GameRegistry.Stats)ask(registry, GameRegistry.GetStats);
+			assertEquals(1, stats.games);
+			assertEquals(1, stats.connections);
+
+			// an unknown session starts a new game, which does not fit
+			assertTrue(ask(registry, new GameRegistry.Connect(second, second, "nosuchsession")) instanceof GameRegistry.Rejected);
+		} finally {
+			system.terminate();
+		}
+	}
+
+	@Test
+	public void passivatedGamesAreLoadedBackIn() throws Exception {
+
+		Path directory = Files.createTempDirectory("games");
+		ActorSystem system = ActorSystem.create("passivationtest", ConfigFactory.parseString("game.registry.reconnect-timeout = 100ms\ngame.passivation.directory = \""+directory.toString().replace("\\", "/")+"\"").withFallback(ConfigFactory.load()));
+		try {
+			ActorRef registry = system.actorOf(Props.create(GameRegistry.class), "registry");
+			ActorRef out = system.deadLetters();
+
+			// once the front-end has gone for the reconnect timeout, the game is saved and stopped
+			GameRegistry.Joined joined = (GameRegistry.Joined)ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), out, null));
+			registry.tell(new GameRegistry.Disconnect(joined.gameId, out), ActorRef.noSender());
+			await().atMost(5, TimeUnit.SECONDS).until(() -> ((GameRegistry.Stats)ask(registry, GameRegistry.GetStats)).games==0);
+			assertTrue(Files.exists(directory.resolve(joined.session+".json")));
+
+			// the session token brings it back in a new GameActor, and the file is removed
+			GameRegistry.Joined restored = (GameRegistry.Joined)ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), out, joined.session));
+			assertEquals(joined.session, restored.session);
+			assertNotEquals(joined.game, restored.game);
+			await().atMost(5, TimeUnit.SECONDS).until(() -> !Files.exists(directory.resolve(joined.session+".json")));
+		} finally {
+			system.terminate();
+		}
+	}
+
+	@Test
+	public void aConnectionThatStopsIsDisconnected() throws Exception {
+
+		ActorSystem system = ActorSystem.create("connectionstoptest", ConfigFactory.parseString("game.registry.reconnect-timeout = 100ms\ngame.passivation.enabled = false").withFallback(ConfigFactory.load()));
+		try {
+			ActorRef registry = system.actorOf(Props.create(GameRegistry.class), "registry");
+			ActorRef connection = system.actorOf(Props.empty());
+
+			// the connection stops without sending a Disconnect, e.g. before it was told its game
+			ask(registry, new GameRegistry.Connect(connection, system.deadLetters(), null));
+			system.stop(connection);
+			await().atMost(5, TimeUnit.SECONDS).until(() -> ((GameRegistry.Stats)ask(registry, GameRegistry.GetStats)).games==0);
+		} finally {
+			system.terminate();
+		}
+	}
+
+	private static Object ask(ActorRef registry, Object message) throws Exception {
+		return Patterns.ask(registry, message, Duration.ofSeconds(5)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+	}
+
+}
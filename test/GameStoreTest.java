@@ -0,0 +1,53 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import actors.GameStore;
+import commands.CommandEncoder;
+import structures.GameState;
+
+/**
+ * Checks that a passivated game reads back the same as it was saved, and that session
+ * tokens cannot be used to reach other files
+ *
+ */
+public class GameStoreTest {
+
+	@Test
+	public void gamesAreReadBackAsSaved() throws Exception {
+
+		GameStore store = new GameStore(Files.createTempDirectory("games"));
+		GameState gameState = new GameState();
+		gameState.gameInitalised = true;
+		gameState.highlights.setMode(3, 2, 1);
+
+		ObjectNode screen = CommandEncoder.newMessage("syncState");
+		screen.putArray("commands");
+		store.save("abc_123-XYZ", store.snapshot("7", gameState, screen));
+		assertTrue(store.contains("abc_123-XYZ"));
+
+		GameStore.Snapshot snapshot = store.load("abc_123-XYZ");
+		assertEquals("7", snapshot.gameId);
+		assertEquals("syncState", snapshot.screen.get("messagetype").asText());
+		GameState restored = new GameState();
+		snapshot.restore(restored);
+		assertTrue(restored.gameInitalised);
+		assertEquals(1, restored.highlights.getMode(3, 2));
+		assertEquals(0, restored.highlights.getMode(2, 3));
+
+		store.delete("abc_123-XYZ");
+		assertFalse(store.contains("abc_123-XYZ"));
+		assertNull(store.load("abc_123-XYZ"));
+
+		assertFalse(store.contains("../abc_123-XYZ"));
+		assertFalse(store.contains(null));
+	}
+
+}
@@ -0,0 +1,51 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import structures.basic.BetterUnit;
+import structures.basic.Card;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.GameTemplates;
+import utils.OrderedCardLoader;
+import utils.StaticConfFiles;
+
+/**
+ * Checks that cards and units copied from the GameTemplates each have their own id and
+ * position, but share the template's visuals
+ *
+ */
+public class GameTemplatesTest {
+
+	@Test
+	public void copiesShareVisualsButNotState() {
+
+		Unit first = GameTemplates.newUnit(StaticConfFiles.u_fire_spitter, 1, Unit.class);
+		Unit second = BasicObjectBuilders.loadUnit(StaticConfFiles.u_fire_spitter, 2, Unit.class);
+		assertEquals(1, first.getId());
+		assertEquals(2, second.getId());
+		assertSame(first.getAnimations(), second.getAnimations());
+		assertNotSame(first.getPosition(), second.getPosition());
+		first.setPositionByTile(BasicObjectBuilders.loadTile(3, 2));
+		assertEquals(0, second.getPosition().getTilex());
+
+		// other types of unit can be made from the same template
+		Unit avatar = GameTemplates.newUnit(StaticConfFiles.humanAvatar, 0, BetterUnit.class);
+		assertTrue(avatar instanceof BetterUnit);
+
+		List<Card> deck = OrderedCardLoader.getPlayer1Cards();
+		assertEquals(20, deck.size());
+		assertEquals(19, deck.get(19).getId());
+		assertSame(deck.get(1).getMiniCard(), deck.get(13).getMiniCard()); // both are pureblade enforcers
+
+		assertEquals(GameTemplates.newEffect(StaticConfFiles.f1_buff).getFps(), BasicObjectBuilders.loadEffect(StaticConfFiles.f1_buff).getFps());
+		assertNull(GameTemplates.newCard("conf/gameconfs/cards/nosuchcard.json", 0, Card.class));
+	}
+
+}
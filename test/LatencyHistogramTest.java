@@ -0,0 +1,70 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import commands.BasicCommands;
+import commands.DiscardSink;
+import metrics.GameMetrics;
+import metrics.LatencyHistogram;
+import utils.BasicObjectBuilders;
+
+/**
+ * Checks that latencies are counted in the right buckets, and that many threads can
+ * record into the same histogram
+ *
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void latenciesAreBucketed() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(500); // 0.5us, bucket 0
+		histogram.record(3_000); // 3us, bucket 2 (under 4us)
+		histogram.record(3_500);
+		histogram.record(1_000_000); // 1ms, bucket 10 (under 1024us)
+
+		assertEquals(4, histogram.getCount());
+		assertEquals(1, histogram.getBucketCount(0));
+		assertEquals(2, histogram.getBucketCount(2));
+		assertEquals(1, histogram.getBucketCount(10));
+		assertEquals(1_000_000, histogram.getMaxNanos());
+		assertEquals(1_007_000, histogram.getSumNanos());
+
+		assertEquals(4, histogram.getPercentileMicros(0.5));
+		assertEquals(1024, histogram.getPercentileMicros(0.99));
+	}
+
+	@Test
+	public void threadsShareAHistogram() throws Exception {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> threads = new ArrayList<Future<?>>();
+		for (int thread = 0; thread<8; thread++) {
+			threads.add(executor.submit(() -> {
+				for (int i = 0; i<10_000; i++) histogram.record(i*1000L);
+			}));
+		}
+		for (Future<?> thread : threads) thread.get();
+		executor.shutdown();
+
+		assertEquals(80_000, histogram.getCount());
+		assertEquals(9_999_000, histogram.getMaxNanos());
+	}
+
+	@Test
+	public void commandsAreCounted() {
+
+		long before = GameMetrics.commands.getCount("drawTile");
+		BasicCommands.drawTile(new DiscardSink(), BasicObjectBuilders.loadTile(1, 1), 0);
+		assertEquals(before+1, GameMetrics.commands.getCount("drawTile"));
+	}
+
+}
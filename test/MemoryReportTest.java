@@ -0,0 +1,93 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.ConfigFactory;
+
+import actors.GameRegistry;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.pattern.Patterns;
+import metrics.MemoryEstimate;
+import metrics.MemoryReport;
+import structures.basic.Card;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.GameTemplates;
+import utils.StaticConfFiles;
+
+/**
+ * Checks that copies of units and cards share their templates' visuals, so that a copy
+ * adds little to a game, and that every game is in the memory report
+ *
+ */
+public class MemoryReportTest {
+
+	@Test
+	public void copiesOnlyAddTheirOwnState() {
+
+		Unit lion = BasicObjectBuilders.loadUnit(StaticConfFiles.u_azurite_lion, 1, Unit.class);
+		Card lionCard = BasicObjectBuilders.loadCard(StaticConfFiles.c_azurite_lion, 2, Card.class);
+		String frame = lionCard.getMiniCard().getAnimationFrames()[0];
+		assertSame(frame, lion.getAnimations().getAllFrames().get(lion.getAnimations().getAllFrames().indexOf(frame))); // the same image path is kept once
+
+		try {
+			lion.getAnimations().getAllFrames().clear();
+			throw new AssertionError("shared frames were changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			lion.getCorrection().setScale(2);
+			throw new AssertionError("a shared image correction was changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// each card has its own attack and health, but not its own textures
+		Card other = BasicObjectBuilders.loadCard(StaticConfFiles.c_azurite_lion, 3, Card.class);
+		lionCard.getBigCard().setHealth(lionCard.getBigCard().getHealth()+1);
+		assertEquals(lionCard.getBigCard().getHealth()-1, other.getBigCard().getHealth());
+		lionCard.getMiniCard().getAnimationFrames()[0] = "changed";
+		assertEquals(frame, other.getMiniCard().getAnimationFrames()[0]);
+
+		long alone = new MemoryEstimate().add(lion).getBytes();
+		MemoryEstimate withTemplates = new MemoryEstimate();
+		for (Object template : GameTemplates.templates()) withTemplates.add(template);
+		long before = withTemplates.getBytes();
+		long copy = withTemplates.add(lion).getBytes()-before;
+		assertTrue(copy<100);
+		assertTrue(alone>copy*10);
+	}
+
+	@Test
+	public void everyGameIsReported() throws Exception {
+
+		ActorSystem system = ActorSystem.create("memorytest", ConfigFactory.parseString("game.passivation.enabled = false").withFallback(ConfigFactory.load()));
+		try {
+			ActorRef registry = system.actorOf(Props.create(GameRegistry.class), "registry");
+			ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), system.actorOf(Props.empty()), null));
+			ask(registry, new GameRegistry.Connect(system.actorOf(Props.empty()), system.actorOf(Props.empty()), null));
+
+			JsonNode report = MemoryReport.write((GameRegistry.Footprints)ask(registry, GameRegistry.GetFootprints));
+			assertEquals(2, report.get("games").get("count").asInt());
+			assertEquals(2, report.get("perGame").size());
+			assertTrue(report.get("perGame").get(0).get("stateBytes").asLong()>0);
+			assertTrue(report.get("templates").get("bytes").asLong()>report.get("games").get("maxBytes").asLong());
+		} finally {
+			system.terminate();
+		}
+	}
+
+	private static Object ask(ActorRef registry, Object message) throws Exception {
+		return Patterns.ask(registry, message, Duration.ofSeconds(5)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+	}
+
+}
@@ -0,0 +1,59 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import structures.MovementTracker;
+
+/**
+ * Checks that moves finish when the front-end reports that the unit stopped, or when
+ * they time out
+ *
+ */
+public class MovementTrackerTest {
+
+	@Test
+	public void moveFinishesWhenUnitStops() {
+
+		List<Runnable> timeouts = new ArrayList<Runnable>();
+		MovementTracker movement = new MovementTracker((delay, task) -> timeouts.add(task), Duration.ofSeconds(10));
+
+		List<Integer> stopped = new ArrayList<Integer>();
+		movement.expect(1).thenRun(() -> stopped.add(1));
+		movement.onStopped(2, () -> stopped.add(2)); // unit 2 is not moving, so this runs straight away
+
+		movement.started(1);
+		assertTrue(movement.isMoving(1));
+		assertFalse(stopped.contains(1));
+
+		movement.stopped(1);
+		assertFalse(movement.isMoving(1));
+		assertTrue(stopped.contains(1));
+		assertTrue(stopped.contains(2));
+
+		// the timeout for the finished move does nothing
+		for (Runnable timeout : timeouts) timeout.run();
+		assertEquals(2, stopped.size());
+	}
+
+	@Test
+	public void moveTimesOutIfTheUnitNeverStops() {
+
+		List<Runnable> timeouts = new ArrayList<Runnable>();
+		MovementTracker movement = new MovementTracker((delay, task) -> timeouts.add(task), Duration.ofSeconds(10));
+
+		List<Integer> stopped = new ArrayList<Integer>();
+		movement.expect(3).thenRun(() -> stopped.add(3));
+		movement.started(3);
+
+		for (Runnable timeout : timeouts) timeout.run();
+		assertTrue(stopped.contains(3));
+		assertFalse(movement.isMoving(3));
+	}
+
+}
@@ -0,0 +1,52 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import commands.CommandEncoder;
+import commands.PlayerStatsCoalescer;
+import structures.basic.Player;
+
+/**
+ * Checks that the player stat commands in a batch are combined into one setPlayerStats
+ *
+ */
+public class PlayerStatsCoalescerTest {
+
+	@Test
+	public void statChangesAreCombined() {
+
+		PlayerStatsCoalescer coalescer = new PlayerStatsCoalescer();
+		Player human = new Player(20, 2);
+		Player ai = new Player(15, 3);
+
+		JsonNode stats = coalescer.add(CommandEncoder.setPlayer("setPlayer1Mana", human));
+		assertEquals("setPlayerStats", stats.get("messagetype").asText());
+
+		human.setHealth(18);
+		assertNull(coalescer.add(CommandEncoder.setPlayer("setPlayer1Health", human)));
+		assertNull(coalescer.add(CommandEncoder.setPlayer("setPlayer2Health", ai)));
+		ai.setHealth(12);
+		assertNull(coalescer.add(CommandEncoder.setPlayer("setPlayer2Health", ai)));
+
+		assertEquals(18, stats.get("player1").get("health").asInt());
+		assertEquals(2, stats.get("player1").get("mana").asInt());
+		assertEquals(12, stats.get("player2").get("health").asInt());
+		assertFalse(stats.get("player2").has("mana")); // player 2 mana did not change
+
+		// other commands are passed straight through
+		JsonNode notification = CommandEncoder.addPlayer1Notification("hello", 2);
+		assertSame(notification, coalescer.add(notification));
+
+		// the next batch gets a new command
+		coalescer.reset();
+		JsonNode next = coalescer.add(CommandEncoder.setPlayerStats(human, null));
+		assertEquals(18, next.get("player1").get("health").asInt());
+		assertFalse(next.has("player2"));
+	}
+
+}
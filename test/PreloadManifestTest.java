@@ -0,0 +1,50 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import utils.ImageListForPreLoad;
+import utils.PreloadManifest;
+
+/**
+ * Checks that the actorReady message is built from a list of images worked out once, and
+ * that the list is worked out again after it is invalidated
+ *
+ */
+public class PreloadManifestTest {
+
+	@Test
+	public void actorReadyHoldsEveryImage() throws Exception {
+
+		JsonNode ready = new ObjectMapper().readTree(PreloadManifest.actorReady("abc-123"));
+		assertEquals("actorReady", ready.get("messagetype").asText());
+		assertEquals("abc-123", ready.get("session").asText());
+
+		Set<String> images = new HashSet<String>();
+		for (JsonNode image : ready.get("preloadImages")) images.add(image.asText());
+		assertEquals(ImageListForPreLoad.getImageListForPreLoad(), images);
+
+		assertFalse(new ObjectMapper().readTree(PreloadManifest.actorReady(null)).has("session"));
+	}
+
+	@Test
+	public void listIsOnlyWorkedOutAgainWhenInvalidated() {
+
+		String images = PreloadManifest.getImages();
+		assertSame(images, PreloadManifest.getImages());
+
+		PreloadManifest.invalidate();
+		String again = PreloadManifest.getImages();
+		assertNotSame(images, again);
+		assertEquals(images, again); // the files have not changed
+	}
+
+}
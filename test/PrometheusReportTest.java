@@ -0,0 +1,42 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import commands.BasicCommands;
+import commands.DiscardSink;
+import events.EventType;
+import metrics.GameMetrics;
+import metrics.PrometheusReport;
+
+/**
+ * Checks that the metrics report includes what has been recorded, in the Prometheus
+ * text format
+ *
+ */
+public class PrometheusReportTest {
+
+	@Test
+	public void reportIncludesRecordedMetrics() {
+
+		GameMetrics.eventProcessed(EventType.tileclicked, 0, 2_000, 5_000); // waited 2us, took 3us
+		BasicCommands.addPlayer1Notification(new DiscardSink(), "hello", 2);
+
+		String report = new PrometheusReport().write();
+
+		assertTrue(report.contains("# TYPE game_event_processing_seconds histogram\n"));
+		assertTrue(report.contains("game_event_processing_seconds_bucket{type=\"tileclicked\",le=\"4.0E-6\"} "));
+		assertTrue(report.contains("game_event_wait_seconds_bucket{type=\"tileclicked\",le=\"+Inf\"} "));
+		assertTrue(report.contains("game_commands_sent_total{type=\"addPlayer1Notification\"} "));
+		assertTrue(report.contains("\ngame_active_games "));
+		assertTrue(report.contains("\njvm_allocation_rate_bytes_per_second "));
+	}
+
+	@Test
+	public void bytesSentAreCountedInUtf8() {
+
+		assertEquals(5, GameMetrics.utf8Length("hello"));
+		assertEquals(1+2+3+4, GameMetrics.utf8Length("a\u00e9\u20ac\ud83d\ude00")); // a, e acute, euro sign, an emoji
+	}
+
+}
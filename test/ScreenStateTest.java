@@ -0,0 +1,52 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import commands.CommandEncoder;
+import commands.ScreenState;
+import structures.basic.Unit;
+import utils.BasicObjectBuilders;
+import utils.BoardGeometry;
+import utils.StaticConfFiles;
+
+/**
+ * Checks that a syncState message holds what is on screen now, rather than every
+ * command that was sent
+ *
+ */
+public class ScreenStateTest {
+
+	@Test
+	public void syncHoldsOnlyWhatIsOnScreen() {
+
+		ScreenState screen = new ScreenState();
+		screen.observe(CommandEncoder.drawBoard(BasicObjectBuilders.loadGrid(), BoardGeometry.getTile(0, 0), new int[9][5]));
+		screen.observe(CommandEncoder.drawTile(BasicObjectBuilders.loadTile(2, 1), 1));
+
+		Unit lion = BasicObjectBuilders.loadUnit(StaticConfFiles.u_azurite_lion, 1, Unit.class);
+		Unit spitter = BasicObjectBuilders.loadUnit(StaticConfFiles.u_fire_spitter, 2, Unit.class);
+		screen.observe(CommandEncoder.drawUnit(lion, BasicObjectBuilders.loadTile(1, 1)));
+		screen.observe(CommandEncoder.drawUnit(spitter, BasicObjectBuilders.loadTile(5, 2)));
+		screen.observe(CommandEncoder.setUnitHealth(lion, 3));
+		screen.observe(CommandEncoder.setUnitHealth(lion, 2));
+		screen.observe(CommandEncoder.moveUnitToTile(lion, BasicObjectBuilders.loadTile(3, 1)));
+		screen.observe(CommandEncoder.deleteUnit(spitter));
+
+		JsonNode commands = screen.toSync().get("commands");
+		assertEquals(3, commands.size()); // the board, the lion and its health
+
+		JsonNode board = commands.get(0);
+		assertEquals("drawBoard", board.get("messagetype").asText());
+		assertEquals(1, board.get("modes").get((1*9)+2).asInt()); // the drawTile is folded into the board
+
+		JsonNode unit = commands.get(1);
+		assertEquals("drawUnit", unit.get("messagetype").asText());
+		assertEquals(3, unit.get("tile").get("tilex").asInt()); // drawn where it moved to
+		assertEquals(3, unit.get("unit").get("position").get("tilex").asInt());
+
+		assertEquals(2, commands.get(2).get("health").asInt());
+	}
+
+}
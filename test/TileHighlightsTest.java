@@ -0,0 +1,43 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import commands.RecordingSink;
+import structures.TileHighlights;
+import utils.BasicObjectBuilders;
+
+/**
+ * Checks that only the tiles whose mode changes are sent to the front-end
+ *
+ */
+public class TileHighlightsTest {
+
+	@Test
+	public void onlyChangedTilesAreSent() {
+
+		TileHighlights highlights = new TileHighlights(9, 5);
+		RecordingSink out = new RecordingSink();
+
+		assertEquals(2, highlights.highlight(out, Arrays.asList(BasicObjectBuilders.loadTile(1, 1), BasicObjectBuilders.loadTile(2, 1)), 1));
+		assertEquals(1, highlights.getMode(2, 1));
+
+		// moving the highlight along by one tile only changes two tiles
+		assertEquals(2, highlights.highlight(out, Arrays.asList(BasicObjectBuilders.loadTile(2, 1), BasicObjectBuilders.loadTile(3, 1)), 1));
+		JsonNode tiles = out.getCommands("drawTiles").get(1).get("tiles");
+		assertEquals(6, tiles.size());
+		assertEquals(1, tiles.get(0).asInt()); // tile 1,1 back to normal
+		assertEquals(0, tiles.get(2).asInt());
+		assertEquals(3, tiles.get(3).asInt()); // tile 3,1 highlighted
+		assertEquals(1, tiles.get(5).asInt());
+
+		// asking for the same highlight again sends nothing
+		assertEquals(0, highlights.highlight(out, Arrays.asList(BasicObjectBuilders.loadTile(2, 1), BasicObjectBuilders.loadTile(3, 1)), 1));
+		assertEquals(2, highlights.clear(out));
+		assertEquals(3, out.getCommands("drawTiles").size());
+	}
+
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import commands.Timeline;
+
+/**
+ * Checks that a Timeline runs its steps in order, and only waits when it is told to
+ *
+ */
+public class TimelineTest {
+
+	@Test
+	public void stepsRunInOrderWithoutBlocking() {
+
+		List<Runnable> scheduled = new ArrayList<Runnable>(); // tasks waiting on the scheduler, run by hand below
+		List<Long> delays = new ArrayList<Long>();
+		Timeline timeline = new Timeline((delay, task) -> {
+			delays.add(delay.toMillis());
+			scheduled.add(task);
+		});
+
+		List<String> ran = new ArrayList<String>();
+		CompletableFuture<Void> unitStopped = new CompletableFuture<Void>();
+
+		timeline.run(() -> ran.add("move"))
+			.await(() -> unitStopped)
+			.run(() -> ran.add("attack"))
+			.delay(500)
+			.run(() -> ran.add("death"));
+
+		// the first step runs straight away, then the timeline waits for the unit
+		assertEquals(1, ran.size());
+		assertTrue(scheduled.isEmpty());
+
+		unitStopped.complete(null);
+		runScheduled(scheduled);
+		assertEquals(2, ran.size());
+		assertEquals(Long.valueOf(500), delays.get(1));
+
+		runScheduled(scheduled); // the delay finishes
+		runScheduled(scheduled); // and the timeline resumes
+		assertEquals("death", ran.get(2));
+		assertTrue(timeline.isIdle());
+	}
+
+	@Test
+	public void clearDropsWaitingSteps() {
+
+		List<Runnable> scheduled = new ArrayList<Runnable>();
+		Timeline timeline = new Timeline((delay, task) -> scheduled.add(task));
+
+		List<String> ran = new ArrayList<String>();
+		timeline.delay(1000).run(() -> ran.add("late"));
+		timeline.clear();
+
+		while (!scheduled.isEmpty()) runScheduled(scheduled);
+		assertTrue(ran.isEmpty());
+		assertTrue(timeline.isIdle());
+	}
+
+	private static void runScheduled(List<Runnable> scheduled) {
+		List<Runnable> tasks = new ArrayList<Runnable>(scheduled);
+		scheduled.clear();
+		for (Runnable task : tasks) task.run();
+	}
+
+}